@@ -1,22 +1,47 @@
 package src;
 
 import src.model.User;
+import src.repository.Repositories;
 import src.service.ProjectService;
 import src.service.UserService;
+import src.util.AppConfig;
+import src.util.AtomicFileWriter;
+import src.util.CSVJournal;
 import src.util.ConsoleUtils;
 import src.util.InputValidator;
-
-import java.util.ArrayList;
-import java.util.List;
+import src.util.SchemaMigrator;
+import src.util.WriteBehindQueue;
 
 public class Main {
     private static UserService userService = null;
     private static ProjectService projectService = null;
 
     public static void main(String[] args) {
+        // Missing CSV columns are added by SchemaMigrator, the services below read the old layout just fine meanwhile
+        if (AppConfig.BACKGROUND_MIGRATION) {
+            SchemaMigrator.startBackground();
+        } else {
+            SchemaMigrator.migrateAll();
+        }
+
         userService = new UserService(); // Load from CSV....
         projectService = new ProjectService(userService);
 
+        if (AppConfig.SERVER_ADDRESS != null) {
+            // Runs until the JVM is stopped, the hook still writes everything out (Ctrl+C / SIGTERM)
+            Runtime.getRuntime().addShutdownHook(new Thread(Main::shutdown));
+            new SessionServer(userService, projectService).serve(AppConfig.SERVER_ADDRESS);
+            return;
+        }
+
+        runSession(userService, projectService);
+
+        shutdown();
+        ConsoleUtils.slowPrint("System shutting down. Goodbye!", 20);
+    }
+
+    /* One person's login loop until they type EXIT: the console in the normal app, one client in server mode */
+    static void runSession(UserService userService, ProjectService projectService) {
         ConsoleUtils.clear();
         ConsoleUtils.slowPrint("===== Welcome to the BTO Management System =====", 60);
         ConsoleUtils.lineBreak();
@@ -40,7 +65,16 @@ public class Main {
                 System.out.println("❌ Invalid NRIC or Password.");
             }
         }
+    }
 
-        ConsoleUtils.slowPrint("System shutting down. Goodbye!", 20);
+    private static void shutdown() {
+        SchemaMigrator.awaitBackground(); // Never exit halfway through a migration
+        WriteBehindQueue.shutdown(); // Write out every queued update first...
+        CSVJournal.checkpointAll(); // ...then fold any journaled changes back into the CSVs before exiting
+        Repositories.closeAll();
+        if (AppConfig.PRINT_STATS) {
+            System.out.println(AtomicFileWriter.statsSummary());
+            if (projectService != null) System.out.println(projectService.getFlatInventory().statsSummary());
+        }
     }
 }
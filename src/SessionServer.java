@@ -0,0 +1,106 @@
+package src;
+
+import src.service.ProjectService;
+import src.service.UserService;
+import src.util.SessionConsole;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Server mode (-Dhdb.server=7000): every client that connects gets the same login loop and menus as the console app,
+ * on its own virtual thread, all sharing ONE UserService / ProjectService. Try it with e.g. nc localhost 7000.
+ */
+public class SessionServer {
+    /*
+    - Addresses: "7000" (loopback only), "host:7000", or "unix:/path/to/hdb.sock" (a Unix-domain socket, the file is
+      replaced if it is left over from an earlier run)
+    - A session is a virtual thread blocked on its socket most of the time, so it costs a small stack plus the
+      session's Scanner / output buffer (OUTPUT_BUFFER bytes), not a platform thread
+    - The session's socket streams are attached to the thread with SessionConsole, so System.out / InputValidator in
+      the existing menus read and write that client only
+    - The client closing the connection ends its session (the next read throws NoSuchElementException)
+     */
+    private static final int OUTPUT_BUFFER = 1024;
+
+    private final UserService userService;
+    private final ProjectService projectService;
+
+    public SessionServer(UserService userService, ProjectService projectService) {
+        this.userService = userService;
+        this.projectService = projectService;
+    }
+
+    /* Accepts sessions until the JVM is stopped */
+    public void serve(String address) {
+        SessionConsole.install();
+
+        try (ServerSocketChannel server = open(address);
+             ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor()) {
+            System.err.println("✅ Serving sessions on " + server.getLocalAddress());
+
+            while (true) {
+                SocketChannel client = server.accept();
+                sessions.submit(() -> runSession(client));
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Session server stopped: " + address);
+            e.printStackTrace();
+        }
+    }
+
+    private void runSession(SocketChannel client) {
+        try (client;
+             InputStream in = Channels.newInputStream(client);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(client), OUTPUT_BUFFER)) {
+            SessionConsole.attach(in, out);
+            Main.runSession(userService, projectService);
+            System.out.println("Goodbye!");
+        } catch (NoSuchElementException e) {
+            // Client disconnected mid-session
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Session ended with an error: " + e);
+            e.printStackTrace();
+        } finally {
+            SessionConsole.detach();
+        }
+    }
+
+    private static ServerSocketChannel open(String address) throws IOException {
+        if (address.startsWith("unix:")) {
+            Path socketFile = Path.of(address.substring("unix:".length()));
+            Files.deleteIfExists(socketFile);
+
+            ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(socketFile));
+            return server;
+        }
+
+        SocketAddress socketAddress;
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) {
+            socketAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address.trim()));
+        } else {
+            socketAddress = new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1).trim()));
+        }
+
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(socketAddress, 1024); // Backlog for bursts of clients connecting at once
+        return server;
+    }
+}
@@ -1,32 +1,41 @@
 package src.model;
 
+import src.repository.Repositories;
 import src.service.ApplicantService;
 import src.service.ProjectService;
 import src.service.UserService;
-import src.util.CSVWriter;
 import src.util.ConsoleUtils;
 import src.util.InputValidator;
 
 public class Applicant extends User {
     protected String appliedProjectName;
-    protected String flatTypeApplied; // 2-Room or 3-Room only...
-    protected String applicationStatus; // Uses fixed Strings ENUM as declare below like "PENDING", "SUCCESSFUL", "BOOKED", "UNSUCCESSFUL" to ensure data consistency
+    protected FlatType flatTypeApplied; // 2-Room or 3-Room only...
+    protected AppStatusType applicationStatus; // null until the applicant applies, compared by identity (==)
 
     public enum AppStatusType {
         PENDING,
         SUCCESSFUL,
         UNSUCCESSFUL,
-        BOOKED
+        BOOKED;
+
+        /* Parses a CSV value such as "pending" (case-insensitive), null if blank or unknown */
+        public static AppStatusType fromString(String value) {
+            if (value == null) return null;
+            for (AppStatusType status : values()) {
+                if (status.name().equalsIgnoreCase(value.trim())) return status;
+            }
+            return null;
+        }
     }
 
-    public Applicant(String nric, String password, String name, int age, String maritalStatus) {
+    public Applicant(String nric, String password, String name, int age, MaritalStatus maritalStatus) {
         super(nric, password, name, age, maritalStatus); // Calls the user constructor
         this.flatTypeApplied = null;
         this.appliedProjectName = null;
         this.applicationStatus = null;
     }
 
-    public Applicant(String nric, String password, String name, int age, String maritalStatus, String flatTypeApplied, String appliedProjectName, String applicationStatus) {
+    public Applicant(String nric, String password, String name, int age, MaritalStatus maritalStatus, FlatType flatTypeApplied, String appliedProjectName, AppStatusType applicationStatus) {
         super(nric, password, name, age, maritalStatus); // Calls the user constructor
         this.flatTypeApplied = flatTypeApplied;
         this.appliedProjectName = appliedProjectName;
@@ -37,22 +46,22 @@ public class Applicant extends User {
         return appliedProjectName;
     }
 
-    public String getFlatTypeApplied() {
+    public FlatType getFlatTypeApplied() {
         return flatTypeApplied;
     }
 
-    public String getApplicationStatus() {
+    public AppStatusType getApplicationStatus() {
         return applicationStatus;
     }
 
-    public void setApplicationStatus(String applicationStatus) {
+    public void setApplicationStatus(AppStatusType applicationStatus) {
         this.applicationStatus = applicationStatus;
     }
 
-    public void applyForProject(String projectName, String flatType) {
+    public void applyForProject(String projectName, FlatType flatType) {
         this.appliedProjectName = projectName;
         this.flatTypeApplied = flatType;
-        this.applicationStatus = AppStatusType.PENDING.name();
+        this.applicationStatus = AppStatusType.PENDING;
         System.out.println("Application submitted for project: " + projectName + " (" + flatType + ")");
     }
 
@@ -127,9 +136,16 @@ public class Applicant extends User {
 
                         if (project == null) {
                             System.out.println("Project not found.");
+                            projectService.printSuggestions(projectName);
                         } else {
-                            String flatType = InputValidator.getNonEmptyString("Enter flat type (2-Room / 3-Room): ");
-                            applicantService.applyForProject(this, project, flatType);
+                            String flatTypeInput = InputValidator.getNonEmptyString("Enter flat type (2-Room / 3-Room): ");
+                            FlatType flatType = FlatType.fromString(flatTypeInput);
+
+                            if (flatType == null) {
+                                System.out.println("❌ Invalid flat type: " + flatTypeInput);
+                            } else {
+                                applicantService.applyForProject(this, project, flatType);
+                            }
                         }
                     }
                 }
@@ -137,7 +153,7 @@ public class Applicant extends User {
                 case 5 -> {
                     String newPass = InputValidator.getNonEmptyString("Enter new password: ");
                     changePassword(newPass);
-                    boolean updatedSuccessfully = CSVWriter.updateUserPassword(this);
+                    boolean updatedSuccessfully = Repositories.saveUser(this);
                     System.out.println(updatedSuccessfully ? "✅ Password updated, please log out and log back in, redirecting in 3 seconds!" : "❌ Failed to update password.");
 
                     try {
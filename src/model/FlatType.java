@@ -0,0 +1,31 @@
+package src.model;
+
+/* The flat types a project sells, label is how it is written in the CSVs and shown to users */
+public enum FlatType {
+    TWO_ROOM("2-Room"),
+    THREE_ROOM("3-Room");
+
+    private final String label;
+
+    FlatType(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /* Parses "2-Room" / "3-room" etc. (case-insensitive), null if blank or unknown */
+    public static FlatType fromString(String value) {
+        if (value == null) return null;
+        for (FlatType type : values()) {
+            if (type.label.equalsIgnoreCase(value.trim())) return type;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
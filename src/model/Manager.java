@@ -2,16 +2,16 @@ package src.model;
 
 import java.util.Map;
 
+import src.repository.Repositories;
 import src.service.ManagerService;
 import src.service.ProjectService;
 import src.service.UserService;
-import src.util.CSVWriter;
 import src.util.ConsoleUtils;
 import src.util.InputValidator;
 
 public class Manager extends User {
 
-    public Manager(String nric, String password, String name, int age, String maritalStatus) {
+    public Manager(String nric, String password, String name, int age, MaritalStatus maritalStatus) {
         super(nric, password, name, age, maritalStatus);
     }
 
@@ -28,6 +28,7 @@ public class Manager extends User {
             System.out.println("4. View Officer Registrations");
             System.out.println("5. Approve/Reject Officers");
             System.out.println("6. Change Password");
+            System.out.println("7. Ballot Pending Applicants");
             System.out.println("0. Logout");
             ConsoleUtils.lineBreak();
 
@@ -64,7 +65,7 @@ public class Manager extends User {
                 case 6 -> {
                     String newPass = InputValidator.getNonEmptyString("Enter new password: ");
                     changePassword(newPass);
-                    boolean updatedSuccessfully = CSVWriter.updateUserPassword(this);
+                    boolean updatedSuccessfully = Repositories.saveUser(this);
                     System.out.println(updatedSuccessfully ? "✅ Password updated, please log out and log back in, redirecting in 3 seconds!" : "❌ Failed to update password.");
 
                     try {
@@ -75,6 +76,7 @@ public class Manager extends User {
 
                     choice = 0;
                 }
+                case 7 -> managerService.runBallot(this);
                 case 0 -> {
                     System.out.println("👋 Logged out successfully.");
                     return;
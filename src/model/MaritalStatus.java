@@ -0,0 +1,31 @@
+package src.model;
+
+/* Marital status of a user, label is how it is written in the CSVs and shown to users */
+public enum MaritalStatus {
+    SINGLE("Single"),
+    MARRIED("Married");
+
+    private final String label;
+
+    MaritalStatus(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /* Parses "Single" / "married" etc. (case-insensitive), null if blank or unknown */
+    public static MaritalStatus fromString(String value) {
+        if (value == null) return null;
+        for (MaritalStatus status : values()) {
+            if (status.label.equalsIgnoreCase(value.trim())) return status;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
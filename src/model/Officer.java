@@ -1,9 +1,9 @@
 package src.model;
 
+import src.repository.Repositories;
 import src.service.OfficerService;
 import src.service.ProjectService;
 import src.service.UserService;
-import src.util.CSVWriter;
 import src.util.ConsoleUtils;
 import src.util.InputValidator;
 
@@ -14,15 +14,24 @@ import java.util.Map;
 
 public class Officer extends Applicant {
     private String assignedProjectName;
-    private String registrationStatus; // "PENDING", "APPROVED", "REJECTED"
+    private RegistrationStatusType registrationStatus; // null until the officer registers for a project
 
     public enum RegistrationStatusType {
         PENDING,
         APPROVED,
-        REJECTED
+        REJECTED;
+
+        /* Parses a CSV value such as "approved" (case-insensitive), null if blank or unknown */
+        public static RegistrationStatusType fromString(String value) {
+            if (value == null) return null;
+            for (RegistrationStatusType status : values()) {
+                if (status.name().equalsIgnoreCase(value.trim())) return status;
+            }
+            return null;
+        }
     }
 
-    public Officer(String nric, String password, String name, int age, String maritalStatus, String assignedProjectName, String registrationStatus) {
+    public Officer(String nric, String password, String name, int age, MaritalStatus maritalStatus, String assignedProjectName, RegistrationStatusType registrationStatus) {
         super(nric, password, name, age, maritalStatus);
         this.assignedProjectName = assignedProjectName;
         this.registrationStatus = registrationStatus;
@@ -32,11 +41,11 @@ public class Officer extends Applicant {
         return assignedProjectName;
     }
 
-    public String getRegistrationStatus() {
+    public RegistrationStatusType getRegistrationStatus() {
         return registrationStatus;
     }
 
-    public void setRegistrationStatus(String status) {
+    public void setRegistrationStatus(RegistrationStatusType status) {
         this.registrationStatus = status;
     }
 
@@ -58,6 +67,7 @@ public class Officer extends Applicant {
             System.out.println("5. Book Flat for Applicant");
             System.out.println("6. Generate Receipt");
             System.out.println("7. Change Password");
+            System.out.println("8. Ballot Pending Applicants");
             System.out.println("0. Logout");
             ConsoleUtils.lineBreak();
 
@@ -80,19 +90,14 @@ public class Officer extends Applicant {
                     if (this.getAssignedProjectName() == null || this.getAssignedProjectName().isEmpty()) {
                         System.out.println("⚠️ You have not applied for any project.");
                     } else {
-                        if (this.getRegistrationStatus().equalsIgnoreCase(RegistrationStatusType.APPROVED.name())) {
+                        if (this.getRegistrationStatus() == RegistrationStatusType.APPROVED) {
                             Project project = ps.getProjectByName(this.getAssignedProjectName());
 
-                            List<String> applicantNrics = project.getApplicantNRICs();
-                            ArrayList<Applicant> bookedApplicants = new ArrayList<Applicant>();
-                            List<String> bookedApplicantsNrics = project.getApplicantNRICs();
+                            List<Applicant> bookedApplicants = ps.getApplicationStatusIndex().applicants(project, AppStatusType.BOOKED);
+                            List<String> bookedApplicantsNrics = new ArrayList<>();
 
-                            for (int i = 0; i < applicantNrics.size(); i++) {
-                                Applicant applicant = us.getApplicantByNric(applicantNrics.get(i));
-                                if (applicant.getApplicationStatus().equalsIgnoreCase(AppStatusType.BOOKED.name())) {
-                                    bookedApplicants.add(applicant);
-                                    bookedApplicantsNrics.add(applicant.getNric());
-                                }
+                            for (Applicant applicant : bookedApplicants) {
+                                bookedApplicantsNrics.add(applicant.getNric());
                             }
 
                             if (bookedApplicants.size() == 0) {
@@ -118,7 +123,7 @@ public class Officer extends Applicant {
                 case 7 -> {
                     String newPass = InputValidator.getNonEmptyString("Enter new password: ");
                     changePassword(newPass);
-                    boolean updatedSuccessfully = CSVWriter.updateUserPassword(this);
+                    boolean updatedSuccessfully = Repositories.saveUser(this);
                     System.out.println(updatedSuccessfully ? "✅ Password updated, please log out and log back in, redirecting in 3 seconds!" : "❌ Failed to update password.");
 
                     try {
@@ -129,6 +134,7 @@ public class Officer extends Applicant {
 
                     choice = 0;
                 }
+                case 8 -> officerService.runBallot(this);
                 case 0 -> System.out.println("Logging out...");
                 default -> System.out.println("Invalid option.");
             }
@@ -1,14 +1,18 @@
 package src.model;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Project {
     private String name;
     private String neighbourhood;
 
-    private int units2Room;
-    private int units3Room;
+    // Units left per flat type, taken with compare-and-set (see FlatInventory) so concurrent bookings never oversell
+    private final AtomicInteger units2Room;
+    private final AtomicInteger units3Room;
 
     private double price2Room;
     private double price3Room;
@@ -23,19 +27,24 @@ public class Project {
 
     private String managerNRIC; // A project is only assigned to 1 manager...
     private List<String> officerNRICs;
-    private List<String> applicantNRICs;
+
+    // Applicants live in the membership store (see ProjectService.getApplicantNRICs), this is only what an old ApplicantNRICs cell still held
+    private List<String> legacyApplicantNRICs;
 
     private boolean visibility;
 
+    // Whether today is inside the application window, kept current by ProjectSchedule (computed once here for new objects)
+    private boolean open;
+
     public Project(String name, String neighbourhood, int units2Room, double price2Room,
                    int units3Room, double price3Room, LocalDate openDate, LocalDate closeDate,
                    String managerName, int officerSlot, List<String> officerNames,
-                   String managerNRIC, List<String> officerNRICs, List<String> applicantNRICs, boolean visibility) {
+                   String managerNRIC, List<String> officerNRICs, List<String> legacyApplicantNRICs, boolean visibility) {
         this.name = name;
         this.neighbourhood = neighbourhood;
-        this.units2Room = units2Room;
+        this.units2Room = new AtomicInteger(units2Room);
         this.price2Room = price2Room;
-        this.units3Room = units3Room;
+        this.units3Room = new AtomicInteger(units3Room);
         this.price3Room = price3Room;
         this.openDate = openDate;
         this.closeDate = closeDate;
@@ -44,8 +53,11 @@ public class Project {
         this.officerNames = officerNames;
         this.managerNRIC = managerNRIC;
         this.officerNRICs = officerNRICs;
-        this.applicantNRICs = applicantNRICs;
+        this.legacyApplicantNRICs = legacyApplicantNRICs == null ? new ArrayList<>() : legacyApplicantNRICs;
         this.visibility = visibility;
+
+        LocalDate today = LocalDate.now();
+        this.open = openDate != null && closeDate != null && !today.isBefore(openDate) && !today.isAfter(closeDate);
     }
 
     public String getName() {
@@ -57,11 +69,11 @@ public class Project {
     }
 
     public int getTwoRoomUnits() {
-        return units2Room;
+        return units2Room.get();
     }
 
     public int getThreeRoomUnits() {
-        return units3Room;
+        return units3Room.get();
     }
 
     public double getTwoRoomPrice() {
@@ -85,7 +97,7 @@ public class Project {
     }
 
     public void setTwoRoomUnits(int units2Room) {
-        this.units2Room = units2Room;
+        this.units2Room.set(units2Room);
     }
 
     public void setTwoRoomPrice(double price2Room) {
@@ -93,7 +105,7 @@ public class Project {
     }
 
     public void setThreeRoomUnits(int units3Room) {
-        this.units3Room = units3Room;
+        this.units3Room.set(units3Room);
     }
 
     public void setThreeRoomPrice(double price3Room) {
@@ -109,8 +121,11 @@ public class Project {
     }
 
     public boolean isOpen() {
-        LocalDate today = LocalDate.now();
-        return !today.isBefore(openDate) && !today.isAfter(closeDate);
+        return open;
+    }
+
+    public void setOpen(boolean open) {
+        this.open = open;
     }
 
     public boolean isVisible() {
@@ -121,19 +136,26 @@ public class Project {
         this.visibility = visible;
     }
 
-    public boolean hasAvailableUnits(String flatType) {
-        if ("2-Room".equalsIgnoreCase(flatType)) {
-            return units2Room > 0;
-        } else if ("3-Room".equalsIgnoreCase(flatType)) {
-            return units3Room > 0;
-        }
-        return false;
+    public boolean hasAvailableUnits(FlatType flatType) {
+        return getUnits(flatType) > 0;
     }
 
-    public void addApplicant(String applicantNric) {
-        if (!applicantNRICs.contains(applicantNric)) {
-            applicantNRICs.add(applicantNric);
-        }
+    /* Units left of a flat type (0 for an unknown one) */
+    public int getUnits(FlatType flatType) {
+        AtomicInteger units = unitsOf(flatType);
+        return units == null ? 0 : units.get();
+    }
+
+    /* Sets the units of a flat type only if it is still `expected`, false if another booking changed it first */
+    public boolean compareAndSetUnits(FlatType flatType, int expected, int units) {
+        AtomicInteger counter = unitsOf(flatType);
+        return counter != null && counter.compareAndSet(expected, units);
+    }
+
+    private AtomicInteger unitsOf(FlatType flatType) {
+        if (flatType == FlatType.TWO_ROOM) return units2Room;
+        if (flatType == FlatType.THREE_ROOM) return units3Room;
+        return null;
     }
 
     public String getManagerNRIC() {
@@ -144,12 +166,21 @@ public class Project {
         return officerNames;
     }
 
-    public List<String> getOfficerNRICs() {
-        return officerNRICs;
+    // A read-only copy: officers are added by a manager's approval while other sessions list the project
+    public synchronized List<String> getOfficerNRICs() {
+        return Collections.unmodifiableList(new ArrayList<>(officerNRICs));
+    }
+
+    public synchronized void addOfficer(String officerNric) {
+        officerNRICs.add(officerNric);
+    }
+
+    public List<String> getLegacyApplicantNRICs() {
+        return legacyApplicantNRICs;
     }
 
-    public List<String> getApplicantNRICs() {
-        return applicantNRICs;
+    public void clearLegacyApplicantNRICs() {
+        this.legacyApplicantNRICs = new ArrayList<>();
     }
 
     public String getManagerName() {
@@ -164,8 +195,8 @@ public class Project {
         System.out.println("--- Project: " + name + " ---");
         System.out.println("Location: " + neighbourhood);
         System.out.println("Application Period: " + openDate + " to " + closeDate);
-        System.out.println("2-Room Units Left: " + units2Room + " ($" + price2Room + ")");
-        System.out.println("3-Room Units Left: " + units3Room + " ($" + price3Room + ")");
+        System.out.println("2-Room Units Left: " + units2Room.get() + " ($" + price2Room + ")");
+        System.out.println("3-Room Units Left: " + units3Room.get() + " ($" + price3Room + ")");
         //System.out.println("Visibility: " + (visibility ? "ON" : "OFF"));
         System.out.println("\n");
     }
@@ -13,9 +13,9 @@ public abstract class User {
     protected String password;
     protected String name;
     protected int age;
-    protected String maritalStatus; // "Single" or "Married"
+    protected MaritalStatus maritalStatus; // SINGLE or MARRIED, parsed once at load
 
-    public User(String nric, String password, String name, int age, String maritalStatus) {
+    public User(String nric, String password, String name, int age, MaritalStatus maritalStatus) {
         this.nric = nric;
         this.password = password;
         this.name = name;
@@ -39,7 +39,7 @@ public abstract class User {
         return age;
     }
 
-    public String getMaritalStatus() {
+    public MaritalStatus getMaritalStatus() {
         return maritalStatus;
     }
 
@@ -0,0 +1,90 @@
+package src.repository;
+
+import src.model.Applicant;
+import src.model.FlatType;
+import src.model.MaritalStatus;
+import src.util.CSVReader;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/* ApplicantList.csv row <-> Applicant, keyed by NRIC */
+public class ApplicantFormat implements RecordFormat<Applicant> {
+    private static final List<String> HEADERS = List.of(
+            "NRIC", "Password", "Name", "Age", "Marital Status",
+            "FlatTypeApplied", "AppliedProjectName", "ApplicationStatus"
+    );
+
+    @Override
+    public String keyOf(Applicant applicant) {
+        return applicant.getNric();
+    }
+
+    @Override
+    public String keyColumn() {
+        return "NRIC";
+    }
+
+    @Override
+    public List<String> headers() {
+        return HEADERS;
+    }
+
+    @Override
+    public Applicant fromRow(Map<String, Integer> columns, String[] cells) {
+        if (CSVReader.cell(columns, cells, "NRIC").trim().isEmpty()) return null;
+
+        try {
+            return new Applicant(
+                    CSVReader.cell(columns, cells, "NRIC"),
+                    CSVReader.cell(columns, cells, "Password"),
+                    CSVReader.cell(columns, cells, "Name"),
+                    Integer.parseInt(CSVReader.cell(columns, cells, "Age")),
+                    MaritalStatus.fromString(CSVReader.cell(columns, cells, "Marital Status")),
+                    FlatType.fromString(CSVReader.cell(columns, cells, "FlatTypeApplied")),
+                    CSVReader.cell(columns, cells, "AppliedProjectName"),
+                    Applicant.AppStatusType.fromString(CSVReader.cell(columns, cells, "ApplicationStatus"))
+            );
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to parse applicant: " + String.join(",", cells));
+            return null;
+        }
+    }
+
+    @Override
+    public Map<String, String> toRow(Applicant applicant) {
+        Map<String, String> row = new LinkedHashMap<>();
+        row.put("Password", applicant.getPassword());
+        row.put("Name", applicant.getName());
+        row.put("Age", String.valueOf(applicant.getAge()));
+        row.put("Marital Status", RecordFormat.str(applicant.getMaritalStatus()));
+        row.put("FlatTypeApplied", RecordFormat.str(applicant.getFlatTypeApplied()));
+        row.put("AppliedProjectName", RecordFormat.str(applicant.getAppliedProjectName()));
+        row.put("ApplicationStatus", RecordFormat.str(applicant.getApplicationStatus()));
+        return row;
+    }
+
+    @Override
+    public void write(Applicant applicant, DataOutput out) throws IOException {
+        RecordFormat.writeString(out, applicant.getNric());
+        RecordFormat.writeString(out, applicant.getPassword());
+        RecordFormat.writeString(out, applicant.getName());
+        out.writeInt(applicant.getAge());
+        RecordFormat.writeEnum(out, applicant.getMaritalStatus());
+        RecordFormat.writeEnum(out, applicant.getFlatTypeApplied());
+        RecordFormat.writeString(out, applicant.getAppliedProjectName());
+        RecordFormat.writeEnum(out, applicant.getApplicationStatus());
+    }
+
+    @Override
+    public Applicant read(DataInput in) throws IOException {
+        return new Applicant(
+                RecordFormat.readString(in), RecordFormat.readString(in), RecordFormat.readString(in), in.readInt(),
+                RecordFormat.readEnum(in, MaritalStatus.values()), RecordFormat.readEnum(in, FlatType.values()),
+                RecordFormat.readString(in), RecordFormat.readEnum(in, Applicant.AppStatusType.values()));
+    }
+}
@@ -0,0 +1,656 @@
+package src.repository;
+
+import src.util.AtomicFileWriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A single-file B+tree of String key -> byte[] value, stored in fixed-size pages.
+ * Point reads and updates touch one root-to-leaf path, range scans walk the linked leaves in key order.
+ */
+public class BTreeFile implements Closeable {
+    /*
+    File layout (every page is PAGE_SIZE bytes, page N starts at N * PAGE_SIZE):
+    - Page 0 is the header: magic, format version, page size, root page, page count, free list head
+    - Leaf pages:     type, entry count, next leaf (0 = last) | per entry: key, then the value inline or an overflow reference
+    - Internal pages: type, key count, first child             | per key: key, child holding keys >= that key
+    - Overflow pages: type, next overflow page, bytes used, data (values bigger than MAX_INLINE_VALUE are chained here)
+    - Free pages:     type, next free page (pages freed by overflow chains are reused before the file grows)
+
+    Updates are page-level: a changed record rewrites its leaf (plus its overflow chain if it has one), the header
+    is only rewritten when a page is allocated/freed or the root moves.
+    Only a full leaf splits into two, pushing ONE separator key into its parent.
+    Deletes just remove the entry from its leaf, pages are never merged (records are rarely deleted here).
+
+    The pages ONE change touches are collected and written together at the end of it, new pages first and the
+    header last. replaceAll (a batch of records) and rename are ONE change each, if they fail halfway nothing of
+    them is written. The last write is pushed to disk according to hdb.durability like a CSV commit.
+    During a bulk load pages are only written once BULK_FLUSH_PAGES of them are dirty, so a leaf that takes
+    many inserts in a row is encoded and written once instead of once per insert.
+    There is no write-ahead log, so a crash in the middle of a split can leave the tree inconsistent.
+    Internal nodes stay decoded in memory, plus an LRU of the most recently used LEAF_CACHE_SIZE leaves.
+     */
+    public static final int PAGE_SIZE = 4096;
+
+    private static final int MAGIC = 0x48444254; // "HDBT"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final byte OVERFLOW = 3;
+    private static final byte FREE = 4;
+
+    private static final int NODE_HEADER = 1 + 2 + 4;     // type, count, next leaf / first child
+    private static final int OVERFLOW_HEADER = 1 + 4 + 4; // type, next page, bytes used
+    private static final int OVERFLOW_CAPACITY = PAGE_SIZE - OVERFLOW_HEADER;
+
+    // Small enough that any node split in half always fits back into two pages
+    public static final int MAX_KEY_BYTES = 256;
+    private static final int MAX_INLINE_VALUE = PAGE_SIZE / 8;
+
+    /* Visits ONE entry of a scan, return false to stop the scan */
+    public interface EntryVisitor {
+        boolean visit(String key, byte[] value) throws IOException;
+    }
+
+    private static final int LEAF_CACHE_SIZE = 256;
+    private static final int BULK_FLUSH_PAGES = 1024;
+
+    private final FileChannel channel;
+    private int root;
+    private int pageCount;
+    private int freeHead;
+    private boolean headerDirty = false;
+    private boolean bulkLoad = false;
+
+    // Pages written by the change in progress, in write order (see commit): overflow/free pages and tree nodes
+    private final Map<Integer, ByteBuffer> dirtyPages = new LinkedHashMap<>();
+    private final Map<Integer, Node> dirtyNodes = new LinkedHashMap<>();
+
+    // Internal nodes are few (one per ~100 leaves) and on every path, so they stay decoded in memory
+    private final Map<Integer, Node> internalNodes = new HashMap<>();
+    private final Map<Integer, Node> leaves = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Node> eldest) {
+            return size() > LEAF_CACHE_SIZE;
+        }
+    };
+
+    private BTreeFile(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /* Opens the tree file, creating an empty tree if the file does not exist yet */
+    public static BTreeFile open(String filePath) throws IOException {
+        Path path = Path.of(filePath);
+        if (path.getParent() != null) path.getParent().toFile().mkdirs();
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        BTreeFile tree = new BTreeFile(channel);
+
+        try {
+            if (channel.size() == 0) {
+                tree.pageCount = 1;
+                Node rootLeaf = new Node(tree.allocatePage(), true);
+                tree.root = rootLeaf.page;
+                tree.writeNode(rootLeaf);
+                tree.commit();
+            } else {
+                tree.readHeader(filePath);
+            }
+            return tree;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /*
+      Bulk load (e.g. importing a whole CSV into a new file): changes are written without being forced to disk,
+      until endBulkLoad forces everything ONCE
+     */
+    public synchronized void beginBulkLoad() {
+        bulkLoad = true;
+    }
+
+    public synchronized void endBulkLoad() throws IOException {
+        bulkLoad = false;
+        headerDirty = true;
+        commit();
+    }
+
+    /* Value stored under the key, or null */
+    public synchronized byte[] get(String key) throws IOException {
+        Node leaf = findLeaf(key);
+        int index = Collections.binarySearch(leaf.keys, key);
+        return index < 0 ? null : readValue(leaf.slots.get(index));
+    }
+
+    public synchronized boolean contains(String key) throws IOException {
+        return Collections.binarySearch(findLeaf(key).keys, key) >= 0;
+    }
+
+    /* Inserts or replaces the value of a key, returns true if the key was already there */
+    public synchronized boolean put(String key, byte[] value) throws IOException {
+        try {
+            boolean replaced = putEntry(key, value);
+            commit();
+            return replaced;
+        } catch (IOException | RuntimeException e) {
+            discard();
+            throw e;
+        }
+    }
+
+    /* Removes a key, returns false if it was not there */
+    public synchronized boolean remove(String key) throws IOException {
+        try {
+            if (!removeEntry(key)) return false;
+            commit();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            discard();
+            throw e;
+        }
+    }
+
+    /*
+      Replaces the values of EXISTING keys as ONE change: every page is written at the end in one commit, and if any
+      key is missing or anything fails, nothing of the batch is written (IOException / IllegalArgumentException).
+      Other callers wait on this file until the batch is committed. Not meant for a bulk load in progress.
+     */
+    public synchronized void replaceAll(Map<String, byte[]> entries) throws IOException {
+        try {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                if (Collections.binarySearch(findLeaf(entry.getKey()).keys, entry.getKey()) < 0) {
+                    throw new IllegalArgumentException("Key not in the tree: " + entry.getKey());
+                }
+                putEntry(entry.getKey(), entry.getValue());
+            }
+            commit();
+        } catch (IOException | RuntimeException e) {
+            discard();
+            throw e;
+        }
+    }
+
+    /* Moves a value from oldKey to newKey as ONE change, false if oldKey is missing or newKey is taken */
+    public synchronized boolean rename(String oldKey, String newKey, byte[] value) throws IOException {
+        try {
+            if (Collections.binarySearch(findLeaf(newKey).keys, newKey) >= 0) return false;
+            if (!removeEntry(oldKey)) return false;
+
+            putEntry(newKey, value);
+            commit();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            discard();
+            throw e;
+        }
+    }
+
+    // The tree change of a put, collected in the dirty pages but not committed
+    private boolean putEntry(String key, byte[] value) throws IOException {
+        if (key.getBytes(StandardCharsets.UTF_8).length > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("Key longer than " + MAX_KEY_BYTES + " bytes: " + key);
+        }
+
+        boolean[] replaced = {false};
+        Split split = insert(root, key, value, replaced);
+
+        if (split != null) { // The root itself split, the tree grows one level
+            Node newRoot = new Node(allocatePage(), false);
+            newRoot.children.add(root);
+            newRoot.keys.add(split.key);
+            newRoot.children.add(split.rightPage);
+            writeNode(newRoot);
+            root = newRoot.page;
+            headerDirty = true;
+        }
+        return replaced[0];
+    }
+
+    // The tree change of a remove, collected but not committed
+    private boolean removeEntry(String key) throws IOException {
+        Node leaf = findLeaf(key);
+        int index = Collections.binarySearch(leaf.keys, key);
+        if (index < 0) return false;
+
+        freeValue(leaf.slots.get(index));
+        leaf.keys.remove(index);
+        leaf.slots.remove(index);
+        writeNode(leaf);
+        return true;
+    }
+
+    /* Visits fromInclusive <= key < toExclusive in key order (null = unbounded on that side) */
+    public synchronized void scan(String fromInclusive, String toExclusive, EntryVisitor visitor) throws IOException {
+        Node leaf = fromInclusive == null ? leftmostLeaf() : findLeaf(fromInclusive);
+
+        while (true) {
+            for (int i = 0; i < leaf.keys.size(); i++) {
+                String key = leaf.keys.get(i);
+                if (fromInclusive != null && key.compareTo(fromInclusive) < 0) continue;
+                if (toExclusive != null && key.compareTo(toExclusive) >= 0) return;
+                if (!visitor.visit(key, readValue(leaf.slots.get(i)))) return;
+            }
+            if (leaf.next == 0) return;
+            leaf = readNode(leaf.next);
+        }
+    }
+
+    /* Every key in order, without reading any value */
+    public synchronized List<String> keys() throws IOException {
+        List<String> keys = new ArrayList<>();
+        for (Node leaf = leftmostLeaf(); ; leaf = readNode(leaf.next)) {
+            keys.addAll(leaf.keys);
+            if (leaf.next == 0) return keys;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /* ===== Tree operations ===== */
+
+    private static class Node {
+        final int page;
+        final boolean leaf;
+        final List<String> keys = new ArrayList<>();
+        final List<Slot> slots = new ArrayList<>();        // Leaf only, one per key
+        final List<Integer> children = new ArrayList<>();  // Internal only, keys.size() + 1
+        int next = 0;                                      // Leaf only, right sibling
+
+        Node(int page, boolean leaf) {
+            this.page = page;
+            this.leaf = leaf;
+        }
+
+        int entrySize(int i) {
+            int keyBytes = 2 + utf8Length(keys.get(i));
+            return leaf ? keyBytes + slots.get(i).size() : keyBytes + 4;
+        }
+
+        int byteSize() {
+            int total = NODE_HEADER;
+            for (int i = 0; i < keys.size(); i++) {
+                total += entrySize(i);
+            }
+            return total;
+        }
+    }
+
+    // A leaf value: either the bytes themselves or the length + first page of its overflow chain
+    private static class Slot {
+        final byte[] inline;
+        final int length;
+        final int overflowPage;
+
+        Slot(byte[] inline, int length, int overflowPage) {
+            this.inline = inline;
+            this.length = length;
+            this.overflowPage = overflowPage;
+        }
+
+        int size() {
+            return inline != null ? 1 + 2 + inline.length : 1 + 4 + 4;
+        }
+    }
+
+    private static class Split {
+        final String key;
+        final int rightPage;
+
+        Split(String key, int rightPage) {
+            this.key = key;
+            this.rightPage = rightPage;
+        }
+    }
+
+    // Index of the child that holds key: child i+1 holds keys >= keys[i]
+    private static int childIndex(Node node, String key) {
+        int index = Collections.binarySearch(node.keys, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private Node findLeaf(String key) throws IOException {
+        Node node = readNode(root);
+        while (!node.leaf) {
+            node = readNode(node.children.get(childIndex(node, key)));
+        }
+        return node;
+    }
+
+    private Node leftmostLeaf() throws IOException {
+        Node node = readNode(root);
+        while (!node.leaf) {
+            node = readNode(node.children.get(0));
+        }
+        return node;
+    }
+
+    /* Inserts below page, returns the split to push into the parent (or null if page did not split) */
+    private Split insert(int page, String key, byte[] value, boolean[] replaced) throws IOException {
+        Node node = readNode(page);
+
+        if (node.leaf) {
+            int index = Collections.binarySearch(node.keys, key);
+            Slot slot = storeValue(value);
+            if (index >= 0) {
+                freeValue(node.slots.get(index));
+                node.slots.set(index, slot);
+                replaced[0] = true;
+            } else {
+                node.keys.add(-index - 1, key);
+                node.slots.add(-index - 1, slot);
+            }
+        } else {
+            int child = childIndex(node, key);
+            Split split = insert(node.children.get(child), key, value, replaced);
+            if (split == null) return null; // Only the leaf changed, this page stays as it is
+
+            node.keys.add(child, split.key);
+            node.children.add(child + 1, split.rightPage);
+        }
+
+        if (node.byteSize() <= PAGE_SIZE) {
+            writeNode(node);
+            return null;
+        }
+        return split(node);
+    }
+
+    /* Moves the upper half (by bytes) of an overfull node into a new right sibling */
+    private Split split(Node node) throws IOException {
+        int half = node.byteSize() / 2;
+        int mid = 1;
+        for (int used = NODE_HEADER + node.entrySize(0); mid < node.keys.size() - 1; mid++) {
+            used += node.entrySize(mid);
+            if (used > half) break;
+        }
+
+        Node right = new Node(allocatePage(), node.leaf);
+        String separator;
+
+        if (node.leaf) {
+            separator = node.keys.get(mid);
+            right.keys.addAll(node.keys.subList(mid, node.keys.size()));
+            right.slots.addAll(node.slots.subList(mid, node.slots.size()));
+            node.keys.subList(mid, node.keys.size()).clear();
+            node.slots.subList(mid, node.slots.size()).clear();
+
+            right.next = node.next;
+            node.next = right.page;
+        } else {
+            separator = node.keys.get(mid); // Moves up into the parent, kept in neither half
+            right.keys.addAll(node.keys.subList(mid + 1, node.keys.size()));
+            right.children.addAll(node.children.subList(mid + 1, node.children.size()));
+            node.keys.subList(mid, node.keys.size()).clear();
+            node.children.subList(mid + 1, node.children.size()).clear();
+        }
+
+        // New page first, so a crash before the old page is rewritten leaves the old node intact
+        writeNode(right);
+        writeNode(node);
+        return new Split(separator, right.page);
+    }
+
+    /* ===== Values ===== */
+
+    private Slot storeValue(byte[] value) throws IOException {
+        if (value.length <= MAX_INLINE_VALUE) return new Slot(value, value.length, 0);
+
+        // Written back to front so every page already knows its successor
+        int next = 0;
+        int chunks = (value.length + OVERFLOW_CAPACITY - 1) / OVERFLOW_CAPACITY;
+        for (int chunk = chunks - 1; chunk >= 0; chunk--) {
+            int start = chunk * OVERFLOW_CAPACITY;
+            int length = Math.min(OVERFLOW_CAPACITY, value.length - start);
+
+            ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+            page.put(OVERFLOW).putInt(next).putInt(length).put(value, start, length);
+
+            int pageNumber = allocatePage();
+            writePage(pageNumber, page);
+            next = pageNumber;
+        }
+        return new Slot(null, value.length, next);
+    }
+
+    private byte[] readValue(Slot slot) throws IOException {
+        if (slot.inline != null) return slot.inline;
+
+        byte[] value = new byte[slot.length];
+        int filled = 0;
+        for (int page = slot.overflowPage; page != 0 && filled < value.length; ) {
+            ByteBuffer buffer = readPage(page);
+            if (buffer.get() != OVERFLOW) throw new IOException("Broken overflow chain at page " + page);
+
+            int next = buffer.getInt();
+            int length = buffer.getInt();
+            buffer.get(value, filled, length);
+            filled += length;
+            page = next;
+        }
+        return value;
+    }
+
+    private void freeValue(Slot slot) throws IOException {
+        for (int page = slot.overflowPage; page != 0; ) {
+            ByteBuffer buffer = readPage(page);
+            buffer.get();
+            int next = buffer.getInt();
+            freePage(page);
+            page = next;
+        }
+    }
+
+    /* ===== Pages ===== */
+
+    private int allocatePage() throws IOException {
+        headerDirty = true;
+        if (freeHead == 0) return pageCount++;
+
+        int page = freeHead;
+        ByteBuffer buffer = readPage(page);
+        buffer.get();
+        freeHead = buffer.getInt();
+        return page;
+    }
+
+    private void freePage(int page) throws IOException {
+        internalNodes.remove(page);
+        leaves.remove(page);
+        dirtyNodes.remove(page);
+
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+        buffer.put(FREE).putInt(freeHead);
+        writePage(page, buffer);
+        freeHead = page;
+        headerDirty = true;
+    }
+
+    private Node readNode(int page) throws IOException {
+        Node cached = dirtyNodes.get(page);
+        if (cached == null) cached = internalNodes.get(page);
+        if (cached == null) cached = leaves.get(page);
+        if (cached != null) return cached;
+
+        ByteBuffer buffer = readPage(page);
+        byte type = buffer.get();
+        if (type != LEAF && type != INTERNAL) throw new IOException("Page " + page + " is not a tree node");
+
+        Node node = new Node(page, type == LEAF);
+        int count = buffer.getShort() & 0xFFFF;
+        int pointer = buffer.getInt();
+
+        if (node.leaf) {
+            node.next = pointer;
+            for (int i = 0; i < count; i++) {
+                node.keys.add(readKey(buffer));
+                if (buffer.get() == 0) {
+                    byte[] value = new byte[buffer.getShort() & 0xFFFF];
+                    buffer.get(value);
+                    node.slots.add(new Slot(value, value.length, 0));
+                } else {
+                    node.slots.add(new Slot(null, buffer.getInt(), buffer.getInt()));
+                }
+            }
+            leaves.put(page, node);
+        } else {
+            node.children.add(pointer);
+            for (int i = 0; i < count; i++) {
+                node.keys.add(readKey(buffer));
+                node.children.add(buffer.getInt());
+            }
+            internalNodes.put(page, node);
+        }
+        return node;
+    }
+
+    // Only marks the node dirty, it is encoded when commit() writes it out
+    private void writeNode(Node node) {
+        dirtyNodes.remove(node.page); // Re-inserted at the end, a page always goes out after the pages written before it
+        dirtyNodes.put(node.page, node);
+
+        if (node.leaf) {
+            internalNodes.remove(node.page);
+            leaves.put(node.page, node);
+        } else {
+            leaves.remove(node.page);
+            internalNodes.put(node.page, node);
+        }
+    }
+
+    private static ByteBuffer encodeNode(Node node) {
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+        buffer.put(node.leaf ? LEAF : INTERNAL);
+        buffer.putShort((short) node.keys.size());
+        buffer.putInt(node.leaf ? node.next : node.children.get(0));
+
+        for (int i = 0; i < node.keys.size(); i++) {
+            byte[] key = node.keys.get(i).getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) key.length).put(key);
+
+            if (node.leaf) {
+                Slot slot = node.slots.get(i);
+                if (slot.inline != null) {
+                    buffer.put((byte) 0).putShort((short) slot.inline.length).put(slot.inline);
+                } else {
+                    buffer.put((byte) 1).putInt(slot.length).putInt(slot.overflowPage);
+                }
+            } else {
+                buffer.putInt(node.children.get(i + 1));
+            }
+        }
+        return buffer;
+    }
+
+    // Same as getBytes(UTF_8).length without building the array
+    private static int utf8Length(String value) {
+        int length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x800) {
+                length += Character.isSurrogate(c) ? 1 : 2; // A surrogate pair is 4 bytes for 2 chars
+            } else if (c >= 0x80) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    private static String readKey(ByteBuffer buffer) {
+        byte[] key = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(key);
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer readPage(int page) throws IOException {
+        ByteBuffer dirty = dirtyPages.get(page);
+        if (dirty != null) return dirty.duplicate().clear();
+
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+        long position = (long) page * PAGE_SIZE;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) throw new IOException("Page " + page + " is past the end of the file");
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // Only collected here, commit() does the actual write
+    private void writePage(int page, ByteBuffer buffer) {
+        dirtyPages.remove(page); // Re-inserted at the end, a page always goes out after the pages written before it
+        dirtyPages.put(page, buffer);
+    }
+
+    /*
+      Writes every page of the current change: overflow/free pages, then the nodes pointing at them, then the header.
+      The LAST write is pushed to disk like a CSV commit.
+     */
+    private void commit() throws IOException {
+        if (bulkLoad && dirtyPages.size() + dirtyNodes.size() < BULK_FLUSH_PAGES) return;
+
+        for (Node node : dirtyNodes.values()) {
+            writePage(node.page, encodeNode(node));
+        }
+        dirtyNodes.clear();
+
+        if (headerDirty) {
+            writePage(0, headerPage());
+            headerDirty = bulkLoad; // A bulk load still writes it again at the very end
+        }
+
+        int remaining = dirtyPages.size();
+        for (Map.Entry<Integer, ByteBuffer> page : dirtyPages.entrySet()) {
+            long position = (long) page.getKey() * PAGE_SIZE;
+            if (--remaining == 0 && !bulkLoad) {
+                AtomicFileWriter.patch(channel, position, page.getValue().array());
+            } else {
+                ByteBuffer buffer = page.getValue().clear();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, position + buffer.position());
+                }
+            }
+        }
+        dirtyPages.clear();
+    }
+
+    // A change that failed halfway: nothing of it was written, but cached nodes may already be modified
+    private void discard() throws IOException {
+        dirtyPages.clear();
+        dirtyNodes.clear();
+        internalNodes.clear();
+        leaves.clear();
+        readHeader(null);
+    }
+
+    private void readHeader(String filePath) throws IOException {
+        ByteBuffer header = readPage(0);
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION || header.getInt() != PAGE_SIZE) {
+            throw new IOException("Not a B-tree store (or an incompatible version): " + filePath);
+        }
+        root = header.getInt();
+        pageCount = header.getInt();
+        freeHead = header.getInt();
+        headerDirty = false;
+    }
+
+    private ByteBuffer headerPage() {
+        ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(PAGE_SIZE)
+                .putInt(root).putInt(pageCount).putInt(freeHead);
+        return header;
+    }
+}
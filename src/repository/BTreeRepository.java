@@ -0,0 +1,231 @@
+package src.repository;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Repository over a BTreeFile (one file per kind of record, keyed by NRIC / project name).
+ * Reads and writes are O(log n) page accesses, so the records never have to fit in the heap.
+ */
+public class BTreeRepository<V> implements Repository<String, V>, Closeable {
+    /*
+    - Records are encoded with the format's binary layout (RecordFormat.write / read), ONE tree entry per record
+    - The first time the store file is opened it is filled from the matching CSV (importSource), into "<file>.tmp"
+      first and then renamed, so a crash halfway through an import just imports again on the next boot
+    - The import sorts IMPORT_BATCH records at a time before inserting them, so consecutive inserts land in the
+      same leaf instead of a random one (a CSV is in no particular key order)
+    - From then on the tree is the store: the CSVs are not written any more in B-tree mode
+     */
+    private static final int IMPORT_BATCH = 100_000;
+
+    private final BTreeFile tree;
+    private final RecordFormat<V> format;
+
+    private BTreeRepository(BTreeFile tree, RecordFormat<V> format) {
+        this.tree = tree;
+        this.format = format;
+    }
+
+    /* Opens (or creates and imports) the store file */
+    public static <V> BTreeRepository<V> open(String filePath, RecordFormat<V> format, Repository<String, V> importSource) throws IOException {
+        if (!new File(filePath).exists() && importSource != null) {
+            String tempPath = filePath + ".tmp";
+            Files.deleteIfExists(Path.of(tempPath)); // Left over from an import that did not finish
+
+            try (BTreeRepository<V> imported = new BTreeRepository<>(BTreeFile.open(tempPath), format)) {
+                long start = System.nanoTime();
+                long[] count = {0};
+                IOException[] failure = {null};
+                List<Map.Entry<String, byte[]>> batch = new ArrayList<>();
+
+                imported.tree.beginBulkLoad(); // Nothing is forced to disk until the whole import is in
+                importSource.forEach(value -> {
+                    if (failure[0] != null) return;
+                    try {
+                        batch.add(Map.entry(format.keyOf(value), imported.encode(value)));
+                        if (batch.size() >= IMPORT_BATCH) count[0] += imported.insertBatch(batch);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                });
+                if (failure[0] != null) throw failure[0];
+                count[0] += imported.insertBatch(batch);
+                imported.tree.endBulkLoad();
+
+                System.out.printf("✅ Imported %d records into %s (%d ms)%n",
+                        count[0], filePath, (System.nanoTime() - start) / 1_000_000);
+            }
+            Files.move(Path.of(tempPath), Path.of(filePath), StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        return new BTreeRepository<>(BTreeFile.open(filePath), format);
+    }
+
+    @Override
+    public V findById(String id) {
+        try {
+            byte[] bytes = tree.get(id);
+            return bytes == null ? null : decode(bytes);
+        } catch (IOException e) {
+            System.err.println("❌ Failed to read " + id + " from the B-tree store.");
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Override
+    public boolean exists(String id) {
+        try {
+            return tree.contains(id);
+        } catch (IOException e) {
+            System.err.println("❌ Failed to read " + id + " from the B-tree store.");
+            return false;
+        }
+    }
+
+    @Override
+    public Collection<String> ids() {
+        try {
+            return tree.keys();
+        } catch (IOException e) {
+            System.err.println("❌ Failed to list the keys of the B-tree store.");
+            e.printStackTrace();
+            return List.of();
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<V> visitor) {
+        scan(null, null, visitor);
+    }
+
+    @Override
+    public List<V> findRange(String fromInclusive, String toExclusive) {
+        List<V> matches = new ArrayList<>();
+        scan(fromInclusive, toExclusive, matches::add);
+        return matches;
+    }
+
+    @Override
+    public boolean save(V value) {
+        String key = format.keyOf(value);
+        if (!exists(key)) {
+            System.err.println("⚠️ Record not found in the B-tree store for update: " + key);
+            return false;
+        }
+        return put(key, value);
+    }
+
+    // ONE tree change for the whole batch: committed together, or (if any record is missing or fails) not at all
+    @Override
+    public boolean saveAll(Collection<V> values) {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try {
+            for (V value : values) {
+                entries.put(format.keyOf(value), encode(value));
+            }
+            tree.replaceAll(entries);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("❌ Failed to write a batch of " + entries.size() + " records to the B-tree store, none of it was saved.");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public boolean insert(V value) {
+        String key = format.keyOf(value);
+        if (exists(key)) {
+            System.err.println("⚠️ Record already exists in the B-tree store: " + key);
+            return false;
+        }
+        return put(key, value);
+    }
+
+    @Override
+    public boolean delete(String id) {
+        try {
+            return tree.remove(id);
+        } catch (IOException e) {
+            System.err.println("❌ Failed to delete " + id + " from the B-tree store.");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // ONE tree change, so a failure never leaves the record under neither key
+    @Override
+    public boolean rename(String oldId, V value) {
+        String newId = format.keyOf(value);
+        try {
+            if (tree.rename(oldId, newId, encode(value))) return true;
+
+            System.err.println("⚠️ Cannot rename " + oldId + " in the B-tree store: it is missing or " + newId + " is taken.");
+            return false;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("❌ Failed to rename " + oldId + " in the B-tree store.");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        tree.close();
+    }
+
+    private boolean put(String key, V value) {
+        try {
+            tree.put(key, encode(value));
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("❌ Failed to write " + key + " to the B-tree store.");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /*
+      Sorts, inserts and clears a batch, returns how many keys were new.
+      The sort is stable, so a repeated key is still put in file order and keeps its LAST row like the CSV loaders.
+     */
+    private int insertBatch(List<Map.Entry<String, byte[]>> batch) throws IOException {
+        batch.sort(Map.Entry.comparingByKey());
+
+        int added = 0;
+        for (Map.Entry<String, byte[]> entry : batch) {
+            if (!tree.put(entry.getKey(), entry.getValue())) added++;
+        }
+        batch.clear();
+        return added;
+    }
+
+    private void scan(String fromInclusive, String toExclusive, Consumer<V> visitor) {
+        try {
+            tree.scan(fromInclusive, toExclusive, (key, bytes) -> {
+                visitor.accept(decode(bytes));
+                return true;
+            });
+        } catch (IOException e) {
+            System.err.println("❌ Failed to scan the B-tree store.");
+            e.printStackTrace();
+        }
+    }
+
+    private byte[] encode(V value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            format.write(value, out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private V decode(byte[] bytes) throws IOException {
+        return format.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+}
@@ -0,0 +1,245 @@
+package src.repository;
+
+import src.util.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Repository over ONE CSV file (the original store). Every write-mode of the CSV layer is routed here,
+ * so the services never have to know whether a change is queued, patched in place, journaled or rewritten.
+ */
+public class CsvRepository<V> implements Repository<String, V> {
+    /*
+    save() of an existing record, first mode that applies wins:
+    - Write-behind mode (-Dhdb.writebehind=true): only queues the row in WriteBehindQueue, a background thread writes the batch out later
+      (false while the file's last flush failed, the row is still queued and retried)
+    - Fixed-width mode (-Dhdb.fixedwidth=true, user lists only): patches the row in place (RowOffsetIndex),
+      falls through if the row no longer fits its padded slot
+    - Journal mode (-Dhdb.journal=true): appends ONE record to <file>.journal, the CSV is regenerated by CSVJournal.checkpoint
+    - Otherwise the whole file is rewritten with the row updated
+
+    saveAll() of a batch (e.g. a ballot's outcome) rewrites the file ONCE for every row in it.
+
+    insert(), rename() and delete() change which rows exist, so they flush the write-behind queue first and then
+    append / rewrite the file themselves.
+
+    Writes are synchronized on the repository (ONE file), so two sessions never read-modify-write the file at once.
+
+    Point reads (findById) go through RowOffsetIndex: only the row itself is read from disk, with changes that are
+    journaled or queued but not in the file yet applied on top.
+     */
+    private final String filePath;
+    private final RecordFormat<V> format;
+
+    public CsvRepository(String filePath, RecordFormat<V> format) {
+        this.filePath = filePath;
+        this.format = format;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    @Override
+    public V findById(String id) {
+        Map<String, String> overlay = new HashMap<>(CSVJournal.pendingChanges(filePath, id));
+        overlay.putAll(WriteBehindQueue.pendingChanges(filePath, id));
+
+        return RowOffsetIndex.readRow(filePath, format.keyColumn(), id, overlay, format::fromRow);
+    }
+
+    @Override
+    public boolean exists(String id) {
+        return RowOffsetIndex.contains(filePath, format.keyColumn(), id);
+    }
+
+    // Folds a journal left over from the last run in first, so findById's overlay only ever holds this run's changes
+    @Override
+    public Collection<String> ids() {
+        CSVJournal.checkpoint(filePath);
+        return RowOffsetIndex.keys(filePath, format.keyColumn());
+    }
+
+    @Override
+    public void forEach(Consumer<V> visitor) {
+        CSVReader.streamCSV(filePath, (columns, cells) -> {
+            V value = format.fromRow(columns, cells);
+            if (value != null) visitor.accept(value);
+        });
+    }
+
+    // Rows come back in file order, so a duplicated key still resolves to its LAST row when put into a map
+    @Override
+    public List<V> findAll() {
+        return ParallelCSVLoader.load(filePath, format::fromRow);
+    }
+
+    // A CSV is not sorted, so this is a full scan
+    @Override
+    public List<V> findRange(String fromInclusive, String toExclusive) {
+        TreeMap<String, V> matches = new TreeMap<>();
+        forEach(value -> {
+            String key = format.keyOf(value);
+            if (fromInclusive != null && key.compareTo(fromInclusive) < 0) return;
+            if (toExclusive != null && key.compareTo(toExclusive) >= 0) return;
+            matches.put(key, value);
+        });
+        return new ArrayList<>(matches.values());
+    }
+
+    @Override
+    public synchronized boolean save(V value) {
+        String key = format.keyOf(value);
+        Map<String, String> row = format.toRow(value);
+
+        if (WriteBehindQueue.isEnabled()) {
+            return WriteBehindQueue.enqueue(filePath, format.keyColumn(), key, row);
+        }
+        if (RowOffsetIndex.tryPatch(filePath, format.keyColumn(), key, row)) {
+            return true;
+        }
+        if (CSVJournal.isEnabled()) {
+            return CSVJournal.append(filePath, format.keyColumn(), key, row);
+        }
+
+        CSVTable table = CSVReader.readTable(filePath, format.headers());
+
+        int index = table.indexOf(format.keyColumn(), key);
+        if (index < 0) {
+            System.err.println("⚠️ Row not found in CSV for update: " + key + " (" + filePath + ")");
+            return false;
+        }
+        table.update(index, row);
+
+        return write(table, "❌ Failed to save " + key + " to CSV: " + filePath);
+    }
+
+    /*
+      The whole batch in ONE rewrite (or one write-behind batch), however many rows change.
+      Journaled changes are checkpointed into the file first, so none of them is replayed over the batch later.
+     */
+    @Override
+    public synchronized boolean saveAll(Collection<V> values) {
+        if (values.isEmpty()) return true;
+
+        if (WriteBehindQueue.isEnabled()) {
+            boolean queued = true;
+            for (V value : values) {
+                queued &= WriteBehindQueue.enqueue(filePath, format.keyColumn(), format.keyOf(value), format.toRow(value));
+            }
+            return queued;
+        }
+        if (CSVJournal.isEnabled()) CSVJournal.checkpoint(filePath);
+
+        Map<String, Map<String, String>> updates = new LinkedHashMap<>();
+        for (V value : values) {
+            updates.put(format.keyOf(value), format.toRow(value));
+        }
+        return CSVWriter.applyRowUpdates(filePath, format.keyColumn(), updates);
+    }
+
+    @Override
+    public synchronized boolean insert(V value) {
+        if (!flushQueued()) return false; // Don't append while the flusher may be rewriting the file
+
+        String key = format.keyOf(value);
+        if (exists(key)) {
+            System.err.println("⚠️ Row already exists in CSV: " + key + " (" + filePath + ")");
+            return false;
+        }
+
+        Map<String, String> row = new LinkedHashMap<>(format.toRow(value));
+        row.put(format.keyColumn(), key);
+
+        // A file that is not migrated to every column yet is rewritten instead, so no value is dropped
+        CSVSchema schema = CSVReader.readSchema(filePath);
+        if (schema == null || !schema.containsAll(format.headers())) {
+            CSVTable table = CSVReader.readTable(filePath, format.headers());
+            table.add(new String[0]);
+            table.update(table.size() - 1, row);
+            return write(table, "❌ Failed to add " + key + " to CSV: " + filePath);
+        }
+
+        List<String> cells = new ArrayList<>();
+        for (String header : schema.headers()) {
+            cells.add(row.getOrDefault(header, ""));
+        }
+
+        try {
+            AtomicFileWriter.append(filePath, CSVWriter.toCSVLine(cells) + System.lineSeparator());
+            return true;
+        } catch (IOException e) {
+            System.err.println("❌ Failed to append " + key + " to CSV: " + filePath);
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized boolean delete(String id) {
+        if (!flushQueued()) return false; // Queued updates still point at the row
+
+        CSVTable table = CSVReader.readTable(filePath, format.headers());
+
+        int index = table.indexOf(format.keyColumn(), id);
+        if (index < 0) {
+            System.err.println("⚠️ Row not found in CSV for delete: " + id + " (" + filePath + ")");
+            return false;
+        }
+        table.remove(index);
+
+        return write(table, "❌ Failed to delete " + id + " from CSV: " + filePath);
+    }
+
+    // Rewrites the key in place, so the row keeps its position in the file
+    @Override
+    public synchronized boolean rename(String oldId, V value) {
+        if (!flushQueued()) return false; // Queued updates still use the old key
+
+        CSVTable table = CSVReader.readTable(filePath, format.headers());
+        String newId = format.keyOf(value);
+
+        int index = table.indexOf(format.keyColumn(), oldId);
+        if (index < 0) {
+            System.err.println("⚠️ Row not found in CSV for renaming: " + oldId + " (" + filePath + ")");
+            return false;
+        }
+        if (table.indexOf(format.keyColumn(), newId) >= 0) {
+            System.err.println("⚠️ Row already exists in CSV: " + newId + " (" + filePath + ")");
+            return false;
+        }
+        table.set(index, format.keyColumn(), newId);
+        table.update(index, format.toRow(value));
+
+        return write(table, "❌ Failed to rename " + oldId + " in CSV: " + filePath);
+    }
+
+    @Override
+    public boolean hasPendingWrites(String id) {
+        return WriteBehindQueue.isPending(filePath, id);
+    }
+
+    // Write-behind barrier before changing which rows exist, false if queued rows of this file could not be written
+    private boolean flushQueued() {
+        if (!WriteBehindQueue.isEnabled()) return true;
+
+        WriteBehindQueue.flush();
+        if (!WriteBehindQueue.isFailing(filePath)) return true;
+
+        System.err.println("❌ Queued updates could not be written to CSV, not changing it: " + filePath);
+        return false;
+    }
+
+    private boolean write(CSVTable table, String failureMessage) {
+        try {
+            CSVWriter.writeTable(filePath, table);
+            return true;
+        } catch (IOException e) {
+            System.err.println(failureMessage);
+            e.printStackTrace();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package src.repository;
+
+import src.model.Manager;
+import src.model.MaritalStatus;
+import src.util.CSVReader;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/* ManagerList.csv row <-> Manager, keyed by NRIC */
+public class ManagerFormat implements RecordFormat<Manager> {
+    private static final List<String> HEADERS = List.of("NRIC", "Password", "Name", "Age", "Marital Status");
+
+    @Override
+    public String keyOf(Manager manager) {
+        return manager.getNric();
+    }
+
+    @Override
+    public String keyColumn() {
+        return "NRIC";
+    }
+
+    @Override
+    public List<String> headers() {
+        return HEADERS;
+    }
+
+    @Override
+    public Manager fromRow(Map<String, Integer> columns, String[] cells) {
+        if (CSVReader.cell(columns, cells, "NRIC").trim().isEmpty()) return null;
+
+        try {
+            return new Manager(
+                    CSVReader.cell(columns, cells, "NRIC"),
+                    CSVReader.cell(columns, cells, "Password"),
+                    CSVReader.cell(columns, cells, "Name"),
+                    Integer.parseInt(CSVReader.cell(columns, cells, "Age")),
+                    MaritalStatus.fromString(CSVReader.cell(columns, cells, "Marital Status"))
+            );
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to parse manager: " + String.join(",", cells));
+            return null;
+        }
+    }
+
+    @Override
+    public Map<String, String> toRow(Manager manager) {
+        Map<String, String> row = new LinkedHashMap<>();
+        row.put("Password", manager.getPassword());
+        row.put("Name", manager.getName());
+        row.put("Age", String.valueOf(manager.getAge()));
+        row.put("Marital Status", RecordFormat.str(manager.getMaritalStatus()));
+        return row;
+    }
+
+    @Override
+    public void write(Manager manager, DataOutput out) throws IOException {
+        RecordFormat.writeString(out, manager.getNric());
+        RecordFormat.writeString(out, manager.getPassword());
+        RecordFormat.writeString(out, manager.getName());
+        out.writeInt(manager.getAge());
+        RecordFormat.writeEnum(out, manager.getMaritalStatus());
+    }
+
+    @Override
+    public Manager read(DataInput in) throws IOException {
+        return new Manager(
+                RecordFormat.readString(in), RecordFormat.readString(in), RecordFormat.readString(in), in.readInt(),
+                RecordFormat.readEnum(in, MaritalStatus.values()));
+    }
+}
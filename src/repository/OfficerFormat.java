@@ -0,0 +1,87 @@
+package src.repository;
+
+import src.model.MaritalStatus;
+import src.model.Officer;
+import src.util.CSVReader;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/* OfficerList.csv row <-> Officer, keyed by NRIC */
+public class OfficerFormat implements RecordFormat<Officer> {
+    private static final List<String> HEADERS = List.of(
+            "NRIC", "Password", "Name", "Age", "Marital Status",
+            "AssignedProject", "RegistrationStatus"
+    );
+
+    @Override
+    public String keyOf(Officer officer) {
+        return officer.getNric();
+    }
+
+    @Override
+    public String keyColumn() {
+        return "NRIC";
+    }
+
+    @Override
+    public List<String> headers() {
+        return HEADERS;
+    }
+
+    @Override
+    public Officer fromRow(Map<String, Integer> columns, String[] cells) {
+        if (CSVReader.cell(columns, cells, "NRIC").trim().isEmpty()) return null;
+
+        try {
+            return new Officer(
+                    CSVReader.cell(columns, cells, "NRIC"),
+                    CSVReader.cell(columns, cells, "Password"),
+                    CSVReader.cell(columns, cells, "Name"),
+                    Integer.parseInt(CSVReader.cell(columns, cells, "Age")),
+                    MaritalStatus.fromString(CSVReader.cell(columns, cells, "Marital Status")),
+                    CSVReader.cell(columns, cells, "AssignedProject"),
+                    Officer.RegistrationStatusType.fromString(CSVReader.cell(columns, cells, "RegistrationStatus"))
+            );
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to parse officer: " + String.join(",", cells));
+            return null;
+        }
+    }
+
+    @Override
+    public Map<String, String> toRow(Officer officer) {
+        Map<String, String> row = new LinkedHashMap<>();
+        row.put("Name", officer.getName());
+        row.put("NRIC", officer.getNric());
+        row.put("Age", String.valueOf(officer.getAge()));
+        row.put("Marital Status", RecordFormat.str(officer.getMaritalStatus()));
+        row.put("Password", officer.getPassword());
+        row.put("AssignedProject", officer.getAssignedProjectName());
+        row.put("RegistrationStatus", RecordFormat.str(officer.getRegistrationStatus()));
+        return row;
+    }
+
+    @Override
+    public void write(Officer officer, DataOutput out) throws IOException {
+        RecordFormat.writeString(out, officer.getNric());
+        RecordFormat.writeString(out, officer.getPassword());
+        RecordFormat.writeString(out, officer.getName());
+        out.writeInt(officer.getAge());
+        RecordFormat.writeEnum(out, officer.getMaritalStatus());
+        RecordFormat.writeString(out, officer.getAssignedProjectName());
+        RecordFormat.writeEnum(out, officer.getRegistrationStatus());
+    }
+
+    @Override
+    public Officer read(DataInput in) throws IOException {
+        return new Officer(
+                RecordFormat.readString(in), RecordFormat.readString(in), RecordFormat.readString(in), in.readInt(),
+                RecordFormat.readEnum(in, MaritalStatus.values()), RecordFormat.readString(in),
+                RecordFormat.readEnum(in, Officer.RegistrationStatusType.values()));
+    }
+}
@@ -0,0 +1,138 @@
+package src.repository;
+
+import src.model.FlatType;
+import src.model.Project;
+import src.util.CSVReader;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/* ProjectList.csv row <-> Project, keyed by project name */
+public class ProjectFormat implements RecordFormat<Project> {
+    // Every column of ProjectList.csv, in file order
+    private static final List<String> HEADERS = List.of(
+            "Project Name", "Neighborhood",
+            "Type 1", "Number of units for Type 1", "Selling price for Type 1",
+            "Type 2", "Number of units for Type 2", "Selling price for Type 2",
+            "Application opening date", "Application closing date",
+            "Manager", "Officer Slot", "Officer",
+            "ManagerNRIC", "OfficerNRICs", "ApplicantNRICs", "Visibility"
+    );
+
+    private static final DateTimeFormatter LEGACY_DATE_FORMAT = DateTimeFormatter.ofPattern("M/d/yyyy");
+
+    @Override
+    public String keyOf(Project project) {
+        return project.getName();
+    }
+
+    @Override
+    public String keyColumn() {
+        return "Project Name";
+    }
+
+    @Override
+    public List<String> headers() {
+        return HEADERS;
+    }
+
+    @Override
+    public Project fromRow(Map<String, Integer> columns, String[] cells) {
+        if (CSVReader.cell(columns, cells, "Project Name").trim().isEmpty()) return null;
+
+        try {
+            return new Project(
+                    CSVReader.cell(columns, cells, "Project Name"),
+                    CSVReader.cell(columns, cells, "Neighborhood"),
+                    Integer.parseInt(CSVReader.cell(columns, cells, "Number of units for Type 1")),
+                    Double.parseDouble(CSVReader.cell(columns, cells, "Selling price for Type 1")),
+                    Integer.parseInt(CSVReader.cell(columns, cells, "Number of units for Type 2")),
+                    Double.parseDouble(CSVReader.cell(columns, cells, "Selling price for Type 2")),
+                    LocalDate.parse(CSVReader.cell(columns, cells, "Application opening date"), LEGACY_DATE_FORMAT),
+                    LocalDate.parse(CSVReader.cell(columns, cells, "Application closing date"), LEGACY_DATE_FORMAT),
+                    CSVReader.cell(columns, cells, "Manager"),
+                    Integer.parseInt(CSVReader.cell(columns, cells, "Officer Slot")),
+                    Arrays.stream(CSVReader.cell(columns, cells, "Officer").split(","))
+                            .map(String::trim)
+                            .collect(Collectors.toCollection(ArrayList::new)),
+                    CSVReader.cell(columns, cells, "ManagerNRIC"),
+                    split(CSVReader.cell(columns, cells, "OfficerNRICs")),
+                    split(CSVReader.cell(columns, cells, "ApplicantNRICs")),
+                    Boolean.parseBoolean(CSVReader.cell(columns, cells, "Visibility"))
+            );
+        } catch (Exception e) {
+            System.err.println("❌ Failed to parse project: " + String.join(",", cells));
+            return null;
+        }
+    }
+
+    // No ApplicantNRICs: applicants are kept in ProjectMembershipStore, the cell is blanked once they are moved there
+    @Override
+    public Map<String, String> toRow(Project project) {
+        Map<String, String> row = new LinkedHashMap<>();
+        row.put("Neighborhood", project.getNeighbourhood());
+        row.put("Type 1", FlatType.TWO_ROOM.getLabel());
+        row.put("Number of units for Type 1", String.valueOf(project.getTwoRoomUnits()));
+        row.put("Selling price for Type 1", String.valueOf(project.getTwoRoomPrice()));
+        row.put("Type 2", FlatType.THREE_ROOM.getLabel());
+        row.put("Number of units for Type 2", String.valueOf(project.getThreeRoomUnits()));
+        row.put("Selling price for Type 2", String.valueOf(project.getThreeRoomPrice()));
+        row.put("Application opening date", project.getOpenDate().format(LEGACY_DATE_FORMAT));
+        row.put("Application closing date", project.getCloseDate().format(LEGACY_DATE_FORMAT));
+        row.put("Manager", project.getManagerName());
+        row.put("Officer Slot", String.valueOf(project.getOfficerSlot()));
+        row.put("Officer", join(project.getOfficerNames()));
+        row.put("ManagerNRIC", RecordFormat.str(project.getManagerNRIC()));
+        row.put("OfficerNRICs", join(project.getOfficerNRICs()));
+        row.put("Visibility", String.valueOf(project.isVisible()));
+        return row;
+    }
+
+    @Override
+    public void write(Project project, DataOutput out) throws IOException {
+        RecordFormat.writeString(out, project.getName());
+        RecordFormat.writeString(out, project.getNeighbourhood());
+        out.writeInt(project.getTwoRoomUnits());
+        out.writeDouble(project.getTwoRoomPrice());
+        out.writeInt(project.getThreeRoomUnits());
+        out.writeDouble(project.getThreeRoomPrice());
+        out.writeLong(project.getOpenDate().toEpochDay());
+        out.writeLong(project.getCloseDate().toEpochDay());
+        RecordFormat.writeString(out, project.getManagerName());
+        out.writeInt(project.getOfficerSlot());
+        RecordFormat.writeStrings(out, project.getOfficerNames());
+        RecordFormat.writeString(out, project.getManagerNRIC());
+        RecordFormat.writeStrings(out, project.getOfficerNRICs());
+        RecordFormat.writeStrings(out, List.of()); // Was the applicant list, kept so stores written before stay readable
+        out.writeBoolean(project.isVisible());
+    }
+
+    @Override
+    public Project read(DataInput in) throws IOException {
+        return new Project(
+                RecordFormat.readString(in), RecordFormat.readString(in),
+                in.readInt(), in.readDouble(),
+                in.readInt(), in.readDouble(),
+                LocalDate.ofEpochDay(in.readLong()), LocalDate.ofEpochDay(in.readLong()),
+                RecordFormat.readString(in), in.readInt(), RecordFormat.readStrings(in),
+                RecordFormat.readString(in), RecordFormat.readStrings(in), RecordFormat.readStrings(in),
+                in.readBoolean());
+    }
+
+    // Multi-valued cells are comma-joined inside ONE (quoted) cell
+    private static String join(List<String> values) {
+        return values == null ? "" : String.join(",", values);
+    }
+
+    private static List<String> split(String cell) {
+        return Arrays.stream(cell.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isBlank())
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+}
@@ -0,0 +1,216 @@
+package src.repository;
+
+import src.util.AtomicFileWriter;
+
+import java.io.*;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Which applicants applied to which project, ONE append-only segment file per project (data/membership/<project>.log).
+ * Replaces the ApplicantNRICs cell of ProjectList.csv, so applying to a project appends one short line
+ * instead of rewriting the project's row (and, without journal/fixed-width mode, the whole file).
+ */
+public class ProjectMembershipStore {
+    /*
+    Segment layout (1 line = 1 record, replayed in order):
+        +S1234567A   <- applicant added
+        -S1234567A   <- applicant removed
+    e.g. apply, withdraw and apply again leaves 3 lines and ONE member.
+
+    - A segment is only read the first time its project's applicants are asked for, then kept in memory as a
+      LinkedHashSet: O(1) add / remove / contains, and still iterated in the order the applicants applied
+    - Records are absolute (add = "is a member", remove = "is not"), so replaying a segment twice gives the same result
+    - Once a segment holds more than COMPACT_FACTOR lines per member it is rewritten with just the members
+      (AtomicFileWriter, so a crash mid-compaction leaves the old segment)
+    - The project name is URL encoded into the file name, so any name is a valid file name
+     */
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int COMPACT_FACTOR = 4;
+    private static final int COMPACT_MIN_LINES = 64;
+
+    private final String directory;
+
+    // Members of every project whose segment was read this run, in the order they applied
+    private final Map<String, Set<String>> loaded = new HashMap<>();
+
+    public ProjectMembershipStore(String directory) {
+        this.directory = directory;
+    }
+
+    /*
+      The applicants of a project, read from its segment on first use (empty if it has none). A read-only COPY taken
+      under the store's lock, a live view could change under a caller iterating it while another session applies
+     */
+    public synchronized Set<String> members(String projectName) {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(load(projectName)));
+    }
+
+    /* Number of applicants of a project, without copying them */
+    public synchronized int count(String projectName) {
+        return load(projectName).size();
+    }
+
+    public synchronized boolean contains(String projectName, String nric) {
+        return load(projectName).contains(nric);
+    }
+
+    /* Appends an add record, false if the applicant is already a member or the append failed */
+    public synchronized boolean add(String projectName, String nric) {
+        Set<String> members = load(projectName);
+        if (members.contains(nric)) return false;
+
+        if (!append(projectName, "+" + nric)) return false;
+        members.add(nric);
+        return true;
+    }
+
+    /* Appends a remove record, false if the applicant is not a member or the append failed */
+    public synchronized boolean remove(String projectName, String nric) {
+        Set<String> members = load(projectName);
+        if (!members.contains(nric)) return false;
+
+        if (!append(projectName, "-" + nric)) return false;
+        members.remove(nric);
+        return true;
+    }
+
+    /* Removes several applicants with ONE append (one remove record each), false if the append failed */
+    public synchronized boolean removeAll(String projectName, Collection<String> nrics) {
+        Set<String> members = load(projectName);
+
+        StringBuilder records = new StringBuilder();
+        List<String> removed = new ArrayList<>();
+        for (String nric : nrics) {
+            if (!members.contains(nric)) continue;
+            records.append('-').append(nric).append(System.lineSeparator());
+            removed.add(nric);
+        }
+        if (removed.isEmpty()) return true;
+
+        try {
+            Files.createDirectories(Path.of(directory));
+            AtomicFileWriter.append(segmentPath(projectName), records.toString());
+        } catch (IOException e) {
+            System.err.println("❌ Failed to append to membership segment: " + segmentPath(projectName));
+            e.printStackTrace();
+            return false;
+        }
+
+        removed.forEach(members::remove);
+        return true;
+    }
+
+    /*
+      First step of renaming a project: writes the new name's segment with the current members (replacing anything
+      left under that name), the old segment stays until deleteSegment, so the store never holds the members under NO name
+     */
+    public synchronized boolean copySegment(String oldName, String newName) {
+        Set<String> members = new LinkedHashSet<>(load(oldName));
+        if (!rewrite(newName, members)) return false;
+
+        loaded.put(newName, members);
+        return true;
+    }
+
+    /* Removes a project's segment (last step of a rename, or a leftover under the name of a new project) */
+    public synchronized boolean deleteSegment(String projectName) {
+        loaded.remove(projectName);
+        try {
+            Files.deleteIfExists(Path.of(segmentPath(projectName)));
+            return true;
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to delete membership segment: " + segmentPath(projectName));
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    public synchronized boolean hasSegment(String projectName) {
+        return new File(segmentPath(projectName)).exists();
+    }
+
+    /*
+      Writes the FIRST segment of a project from its old ApplicantNRICs cell.
+      Does nothing if the project already has a segment, the segment wins over whatever is left in the cell.
+     */
+    public synchronized boolean seed(String projectName, List<String> nrics) {
+        if (hasSegment(projectName)) return true;
+
+        Set<String> members = new LinkedHashSet<>(nrics);
+        if (!rewrite(projectName, members)) return false;
+
+        loaded.put(projectName, members);
+        return true;
+    }
+
+    private Set<String> load(String projectName) {
+        Set<String> members = loaded.get(projectName);
+        if (members != null) return members;
+
+        Set<String> replayed = new LinkedHashSet<>();
+        int lines = 0;
+
+        File segment = new File(segmentPath(projectName));
+        if (segment.exists()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(segment), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.length() < 2) continue; // Blank or torn last line
+                    lines++;
+
+                    String nric = line.substring(1).trim();
+                    if (line.charAt(0) == '+') replayed.add(nric);
+                    else if (line.charAt(0) == '-') replayed.remove(nric);
+                }
+            } catch (IOException e) {
+                System.err.println("⚠️ Failed to read membership segment: " + segment.getPath());
+                e.printStackTrace();
+            }
+        }
+
+        members = replayed;
+        loaded.put(projectName, members);
+
+        if (lines >= COMPACT_MIN_LINES && lines > COMPACT_FACTOR * members.size()) {
+            rewrite(projectName, members);
+        }
+        return members;
+    }
+
+    private boolean append(String projectName, String record) {
+        try {
+            Files.createDirectories(Path.of(directory));
+            AtomicFileWriter.append(segmentPath(projectName), record + System.lineSeparator());
+            return true;
+        } catch (IOException e) {
+            System.err.println("❌ Failed to append to membership segment: " + segmentPath(projectName));
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private boolean rewrite(String projectName, Set<String> members) {
+        try {
+            Files.createDirectories(Path.of(directory));
+            try (AtomicFileWriter writer = new AtomicFileWriter(segmentPath(projectName))) {
+                for (String nric : members) {
+                    writer.println("+" + nric);
+                }
+                writer.commit();
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("❌ Failed to write membership segment: " + segmentPath(projectName));
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private String segmentPath(String projectName) {
+        return directory + "/" + URLEncoder.encode(projectName, StandardCharsets.UTF_8) + SEGMENT_SUFFIX;
+    }
+}
@@ -0,0 +1,82 @@
+package src.repository;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How ONE kind of record looks in each store: its CSV row (CsvRepository) and its binary record (BTreeRepository).
+ * One implementation per model in this package (ApplicantFormat, OfficerFormat, ManagerFormat, ProjectFormat).
+ */
+public interface RecordFormat<V> {
+
+    /* Key of the record, e.g. the NRIC or the project name */
+    String keyOf(V value);
+
+    /* CSV column holding the key */
+    String keyColumn();
+
+    /* Every CSV column of the record, in file order */
+    List<String> headers();
+
+    /* Builds the record from ONE CSV row, null to skip the row. Called from several threads at once! */
+    V fromRow(Map<String, Integer> columns, String[] cells);
+
+    /* The record's CSV columns (column -> value) */
+    Map<String, String> toRow(V value);
+
+    void write(V value, DataOutput out) throws IOException;
+
+    V read(DataInput in) throws IOException;
+
+    /* FOLLOWING HELPERS ARE SHARED BY THE FORMATS */
+    // A utility method to ensure null strings are treated consistently by defaulting to "" or its value...
+    static String str(String value) {
+        return value == null ? "" : value;
+    }
+
+    // Enums are written with their CSV label ("2-Room", "Single") or name ("PENDING"), null becomes ""
+    static String str(Enum<?> value) {
+        return value == null ? "" : value.toString();
+    }
+
+    // Binary strings carry a null marker, everything else is writeUTF
+    static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // Enums are stored by ordinal (-1 = null) like in BinarySnapshot, so only ever add constants at the end
+    static void writeEnum(DataOutput out, Enum<?> value) throws IOException {
+        out.writeByte(value == null ? -1 : value.ordinal());
+    }
+
+    static <E extends Enum<E>> E readEnum(DataInput in, E[] values) throws IOException {
+        int ordinal = in.readByte();
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    static void writeStrings(DataOutput out, List<String> values) throws IOException {
+        out.writeInt(values == null ? 0 : values.size());
+        if (values == null) return;
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    static List<String> readStrings(DataInput in) throws IOException {
+        int count = in.readInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+}
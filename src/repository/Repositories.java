@@ -0,0 +1,101 @@
+package src.repository;
+
+import src.model.Applicant;
+import src.model.Manager;
+import src.model.Officer;
+import src.model.Project;
+import src.model.User;
+import src.util.AppConfig;
+import src.util.FilePath;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ONE repository per kind of record that every service reads and writes through.
+ * -Dhdb.store picks the implementation: csv (default, the CSV files) or btree (data/store/*.btree, imported from the CSVs once).
+ */
+public class Repositories {
+    private static Repository<String, Applicant> applicants = null;
+    private static Repository<String, Officer> officers = null;
+    private static Repository<String, Manager> managers = null;
+    private static Repository<String, Project> projects = null;
+    private static ProjectMembershipStore memberships = null;
+
+    private static final List<Closeable> opened = new ArrayList<>();
+
+    public static boolean usesBTree() {
+        return AppConfig.STORE.equals("btree");
+    }
+
+    public static synchronized Repository<String, Applicant> applicants() {
+        if (applicants == null) applicants = open(FilePath.APPLICANT_LIST_FILE, FilePath.APPLICANT_STORE_FILE, new ApplicantFormat());
+        return applicants;
+    }
+
+    public static synchronized Repository<String, Officer> officers() {
+        if (officers == null) officers = open(FilePath.OFFICER_LIST_FILE, FilePath.OFFICER_STORE_FILE, new OfficerFormat());
+        return officers;
+    }
+
+    public static synchronized Repository<String, Manager> managers() {
+        if (managers == null) managers = open(FilePath.MANAGER_LIST_FILE, FilePath.MANAGER_STORE_FILE, new ManagerFormat());
+        return managers;
+    }
+
+    public static synchronized Repository<String, Project> projects() {
+        if (projects == null) projects = open(FilePath.PROJECT_LIST_FILE, FilePath.PROJECT_STORE_FILE, new ProjectFormat());
+        return projects;
+    }
+
+    // Same segments in CSV and B-tree mode, they are already append-only
+    public static synchronized ProjectMembershipStore memberships() {
+        if (memberships == null) memberships = new ProjectMembershipStore(FilePath.PROJECT_MEMBERSHIP_DIR);
+        return memberships;
+    }
+
+    /* Saves ANY user back to the repository of its role (e.g. after a password change) */
+    public static boolean saveUser(User user) {
+        if (user instanceof Applicant) return applicants().save((Applicant) user);
+        if (user instanceof Officer) return officers().save((Officer) user);
+        if (user instanceof Manager) return managers().save((Manager) user);
+
+        System.err.println("❌ Unknown user type.");
+        return false;
+    }
+
+    /* Closes every B-tree store file (called on shutdown) */
+    public static synchronized void closeAll() {
+        for (Closeable store : opened) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.err.println("⚠️ Failed to close a B-tree store.");
+            }
+        }
+        opened.clear();
+        applicants = null;
+        officers = null;
+        managers = null;
+        projects = null;
+        memberships = null;
+    }
+
+    // No fallback to the CSV on failure: in B-tree mode the CSV is stale, writing to it would fork the data
+    private static <V> Repository<String, V> open(String csvPath, String storePath, RecordFormat<V> format) {
+        CsvRepository<V> csv = new CsvRepository<>(csvPath, format);
+        if (!usesBTree()) return csv;
+
+        try {
+            BTreeRepository<V> store = BTreeRepository.open(storePath, format, csv);
+            opened.add(store);
+            return store;
+        } catch (IOException e) {
+            System.err.println("❌ Failed to open B-tree store: " + storePath);
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package src.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Where the services read and write ONE kind of record (applicants, officers, managers, projects) by its key.
+ * Implemented by CsvRepository (the CSV files) and BTreeRepository (a page-based B-tree file), see Repositories.
+ */
+public interface Repository<K extends Comparable<K>, V> {
+
+    /* The record with this key, or null */
+    V findById(K id);
+
+    /* True if a record with this key exists (without building the record if the store can avoid it) */
+    default boolean exists(K id) {
+        return findById(id) != null;
+    }
+
+    /* Every key in the store */
+    Collection<K> ids();
+
+    /* Visits every record ONE at a time without holding them all in memory */
+    void forEach(Consumer<V> visitor);
+
+    /* Every record, e.g. to load a service at startup */
+    default List<V> findAll() {
+        List<V> all = new ArrayList<>();
+        forEach(all::add);
+        return all;
+    }
+
+    /* Records with fromInclusive <= key < toExclusive in key order (null = unbounded on that side) */
+    List<V> findRange(K fromInclusive, K toExclusive);
+
+    /* Writes back an EXISTING record, false if it is not in the store or the write failed */
+    boolean save(V value);
+
+    /* Writes back several EXISTING records, as ONE commit where the store can. False if any of them failed */
+    default boolean saveAll(Collection<V> values) {
+        boolean saved = true;
+        for (V value : values) {
+            saved &= save(value);
+        }
+        return saved;
+    }
+
+    /* Adds a NEW record, false if the key is already taken or the write failed */
+    boolean insert(V value);
+
+    /* Removes a record, false if it was not there or the write failed */
+    boolean delete(K id);
+
+    /* Moves a record to a new key (value already carries the new key) */
+    default boolean rename(K oldId, V value) {
+        return delete(oldId) && insert(value);
+    }
+
+    /* True while a change to this record is accepted but not in the store yet (it must not be dropped from caches) */
+    default boolean hasPendingWrites(K id) {
+        return false;
+    }
+}
@@ -1,12 +1,14 @@
 package src.service;
 
 import src.model.Applicant;
+import src.model.FlatType;
+import src.model.MaritalStatus;
 import src.model.Project;
-import src.util.CSVWriter;
-import src.util.FilePath;
+import src.repository.Repositories;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ApplicantService {
 
@@ -16,29 +18,40 @@ public class ApplicantService {
         this.projectService = projectService;
     }
 
+    // Reads the open & visible projects straight from the eligibility buckets, singles only ever qualify for 2-Room
     public List<Project> getEligibleProjects(Applicant applicant) {
-        List<Project> eligible = new ArrayList<>();
-        for (Project project : projectService.getAllProjects().values()) {
-            if (!project.isVisible() || !project.isOpen()) continue;
-
-            boolean isSingle = applicant.getMaritalStatus().equalsIgnoreCase("Single");
-            int age = applicant.getAge();
+        boolean isSingle = applicant.getMaritalStatus() == MaritalStatus.SINGLE;
+        int age = applicant.getAge();
 
-            if (isSingle && age >= 35 && project.hasAvailableUnits("2-Room")) {
-                eligible.add(project);
-            } else if (!isSingle && age >= 21 && (project.hasAvailableUnits("2-Room") || project.hasAvailableUnits("3-Room"))) {
-                eligible.add(project);
-            }
+        if (isSingle && age >= 35) {
+            return projectService.getEligibilityIndex().projectsWithTwoRoomUnits();
+        } else if (!isSingle && age >= 21) {
+            return projectService.getEligibilityIndex().projectsWithAnyUnits();
         }
-        return eligible;
+        return new ArrayList<>();
     }
 
-    public boolean applyForProject(Applicant applicant, Project project, String flatType) {
+    public boolean applyForProject(Applicant applicant, Project project, FlatType flatType) {
         if (project == null) {
             System.out.println("❌ Project not found.");
             return false;
         }
 
+        // Checked and applied under the project's and the applicant's lock, so two sessions can't both take the slot
+        ReentrantLock projectLock = projectService.projectLock(project);
+        ReentrantLock applicantLock = projectService.userLock(applicant.getNric());
+        projectLock.lock();
+        applicantLock.lock();
+        try {
+            return apply(applicant, project, flatType);
+        } finally {
+            applicantLock.unlock();
+            projectLock.unlock();
+        }
+    }
+
+    private boolean apply(Applicant applicant, Project project, FlatType flatType) {
+
         // Check if already applied
         if (applicant.getAppliedProjectName() != null && !applicant.getAppliedProjectName().isEmpty()) {
             System.out.println("⚠️ You have already applied for a project.");
@@ -60,11 +73,11 @@ public class ApplicantService {
 
         // Apply
         applicant.applyForProject(project.getName(), flatType);
-        project.addApplicant(applicant.getNric());
+        projectService.addApplicant(project, applicant.getNric()); // Appended to the project's membership segment, the project row is unchanged
+        projectService.getApplicationStatusIndex().update(project, applicant);
 
         System.out.println("✅ Application submitted!");
-        CSVWriter.updateApplicant(applicant, FilePath.APPLICANT_LIST_FILE);
-        CSVWriter.saveProject(project, FilePath.PROJECT_LIST_FILE);
+        Repositories.applicants().save(applicant);
 
         return true;
     }
@@ -79,27 +92,38 @@ public class ApplicantService {
 
         Project project = projectService.getProjectByName(projectName);
 
-        if (project != null) {
-            project.getApplicantNRICs().remove(applicant.getNric());
-        }
+        ReentrantLock projectLock = project == null ? null : projectService.projectLock(project);
+        ReentrantLock applicantLock = projectService.userLock(applicant.getNric());
+        if (projectLock != null) projectLock.lock();
+        applicantLock.lock();
+        try {
+            if (!projectName.equals(applicant.getAppliedProjectName())) return; // Changed by another session meanwhile
 
-        applicant.withdrawApplication();
-        CSVWriter.updateApplicant(applicant, FilePath.APPLICANT_LIST_FILE);
-        CSVWriter.saveProject(project, FilePath.PROJECT_LIST_FILE);
+            if (project != null) {
+                projectService.removeApplicant(project, applicant.getNric());
+            }
+
+            applicant.withdrawApplication();
+            if (project != null) projectService.getApplicationStatusIndex().update(project, applicant);
+            Repositories.applicants().save(applicant);
+        } finally {
+            applicantLock.unlock();
+            if (projectLock != null) projectLock.unlock();
+        }
     }
 
     public void viewApplicationStatus(Applicant applicant) {
         applicant.viewApplicationStatus();
     }
 
-    private boolean isEligible(Applicant applicant, String flatType) {
-        String marital = applicant.getMaritalStatus();
+    // Also re-checked by BallotEngine before an application is drawn
+    static boolean isEligible(Applicant applicant, FlatType flatType) {
         int age = applicant.getAge();
 
-        if (marital.equalsIgnoreCase("Single")) {
-            return flatType.equalsIgnoreCase("2-Room") && age >= 35;
+        if (applicant.getMaritalStatus() == MaritalStatus.SINGLE) {
+            return flatType == FlatType.TWO_ROOM && age >= 35;
         } else {
-            return (flatType.equalsIgnoreCase("2-Room") || flatType.equalsIgnoreCase("3-Room")) && age >= 21;
+            return flatType != null && age >= 21;
         }
     }
 }
@@ -0,0 +1,83 @@
+package src.service;
+
+import src.model.Applicant;
+import src.model.Project;
+import src.repository.Repositories;
+
+import java.util.*;
+
+/**
+ * Per project: the NRICs of its applicants, partitioned by application status (PENDING / SUCCESSFUL / UNSUCCESSFUL / BOOKED).
+ * Lets the officer screens list e.g. only the pending applicants without looking up every applicant of the project.
+ */
+public class ApplicationStatusIndex {
+    /*
+    - A project's partitions are built the first time they are asked for, by looking up each of its applicants ONCE
+      (only applicants that are still members AND still have the project as their applied project count, like before)
+    - From then on every status change goes through transition(), which sets the status and moves the NRIC between
+      partitions under the same lock, so a reader never sees an applicant in two partitions (or in none)
+    - Joining / leaving a project (apply, withdraw, reject) is reported with update()
+    - Keyed by the Project object itself, so renaming a project keeps its partitions
+     */
+    private final UserService userService;
+    private final Map<Project, Map<Applicant.AppStatusType, Set<String>>> partitions = new HashMap<>();
+
+    public ApplicationStatusIndex(UserService userService) {
+        this.userService = userService;
+    }
+
+    /* The project's applicants with this status, in the order they were added to the partition */
+    public synchronized List<Applicant> applicants(Project project, Applicant.AppStatusType status) {
+        List<Applicant> applicants = new ArrayList<>();
+        for (String nric : partitionsOf(project).get(status)) {
+            Applicant applicant = userService.getApplicantByNric(nric);
+            if (applicant != null) applicants.add(applicant);
+        }
+        return applicants;
+    }
+
+    /* Changes an applicant's status and moves it to the matching partition in one step */
+    public synchronized void transition(Project project, Applicant applicant, Applicant.AppStatusType status) {
+        applicant.setApplicationStatus(status);
+        update(project, applicant);
+    }
+
+    /* Puts the applicant in the partition it belongs in now: after it joined or left the project, or its status changed */
+    public synchronized void update(Project project, Applicant applicant) {
+        Map<Applicant.AppStatusType, Set<String>> byStatus = partitions.get(project);
+        if (byStatus == null) return; // Not built yet, will be built from the current state
+
+        for (Set<String> nrics : byStatus.values()) {
+            nrics.remove(applicant.getNric());
+        }
+        if (belongsTo(project, applicant)) {
+            byStatus.get(applicant.getApplicationStatus()).add(applicant.getNric());
+        }
+    }
+
+    private Map<Applicant.AppStatusType, Set<String>> partitionsOf(Project project) {
+        Map<Applicant.AppStatusType, Set<String>> byStatus = partitions.get(project);
+        if (byStatus != null) return byStatus;
+
+        byStatus = new EnumMap<>(Applicant.AppStatusType.class);
+        for (Applicant.AppStatusType status : Applicant.AppStatusType.values()) {
+            byStatus.put(status, new LinkedHashSet<>());
+        }
+
+        for (String nric : Repositories.memberships().members(project.getName())) {
+            Applicant applicant = userService.getApplicantByNric(nric);
+            if (applicant != null && belongsTo(project, applicant)) {
+                byStatus.get(applicant.getApplicationStatus()).add(nric);
+            }
+        }
+
+        partitions.put(project, byStatus);
+        return byStatus;
+    }
+
+    private static boolean belongsTo(Project project, Applicant applicant) {
+        return applicant.getApplicationStatus() != null
+                && project.getName().equalsIgnoreCase(applicant.getAppliedProjectName())
+                && Repositories.memberships().contains(project.getName(), applicant.getNric());
+    }
+}
@@ -0,0 +1,310 @@
+package src.service;
+
+import src.model.Applicant;
+import src.model.FlatType;
+import src.model.MaritalStatus;
+import src.model.Project;
+import src.repository.Repositories;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides ALL pending applications of a project in one go: ineligible applicants are rejected, the rest are drawn in
+ * a seeded random order (priority group first) and approved until the project's 2-Room / 3-Room units run out.
+ * Several projects are drawn in parallel on the fork-join pool, the outcome is written in ONE commit at the end.
+ */
+public class BallotEngine {
+    /*
+    - Reproducible: an applicant's place in the draw is a hash of (seed, project name, NRIC), so the same seed gives
+      the same outcome whatever order the pending applicants are listed in and whichever thread draws the project
+    - Priority: families (married) are drawn before singles, each group in draw order
+    - Eligibility is checked again with the rules of applying (ApplicantService.isEligible)
+    - Places per flat type = units held for a booking + units left - applicants already SUCCESSFUL for it: an
+      approved applicant only takes the unit off the count when an officer holds one for it, so a held unit is both
+      off the count and still one of the SUCCESSFUL. Held is read before units (see FlatInventory for why that order)
+    - A project is drawn under its projectLock, which apply / withdraw / approve / reject of its applicants take too,
+      every applicant is moved under its userLock with the PENDING check repeated, like handleApplication
+    - Every changed applicant of every project is written with ONE Repository.saveAll, instead of a CSV rewrite per
+      decision. Rejected applicants only leave the project (ONE membership append per project) once that save went
+      through: a crash in between leaves them UNSUCCESSFUL and still listed, which withdrawing clears, never PENDING
+      with no project to be drawn in
+    - If the save fails nothing stays decided: every applicant the ballot moved (and nobody moved on since) is put
+      back to PENDING, so memory matches the store again and the ballot can simply be run again
+    - The draw itself never prints: fork-join threads have no session console (see SessionConsole)
+     */
+
+    /* What one project's ballot decided */
+    public static final class Result {
+        private final Project project;
+        private final Map<FlatType, Integer> approved = new EnumMap<>(FlatType.class);
+        private int unsuccessful = 0;
+        private int ineligible = 0;
+        private boolean saved = false;
+        private final Map<Applicant, Applicant.AppStatusType> decided = new LinkedHashMap<>(); // Applicant -> its outcome
+        private final List<Applicant> leaving = new ArrayList<>(); // Rejected, leave the project once the save went through
+
+        private Result(Project project) {
+            this.project = project;
+        }
+
+        public Project getProject() {
+            return project;
+        }
+
+        public int getApproved(FlatType flatType) {
+            return approved.getOrDefault(flatType, 0);
+        }
+
+        public int getUnsuccessful() {
+            return unsuccessful;
+        }
+
+        public int getIneligible() {
+            return ineligible;
+        }
+
+        public int getDecided() {
+            return decided.size();
+        }
+
+        // False if the decisions could not be written to the repository (they are undone then, see ballot)
+        public boolean isSaved() {
+            return saved;
+        }
+
+        public String summary() {
+            return String.format("%s — %d 2-Room / %d 3-Room approved, %d unsuccessful (%d not eligible)",
+                    project.getName(), getApproved(FlatType.TWO_ROOM), getApproved(FlatType.THREE_ROOM), unsuccessful, ineligible);
+        }
+    }
+
+    // One applicant in the draw, sorted by priority group and then by draw number (NRIC only breaks a hash tie)
+    private static final class Ticket {
+        final Applicant applicant;
+        final int group;
+        final long draw;
+
+        Ticket(Applicant applicant, int group, long draw) {
+            this.applicant = applicant;
+            this.group = group;
+            this.draw = draw;
+        }
+    }
+
+    private static final Comparator<Ticket> DRAW_ORDER = Comparator
+            .comparingInt((Ticket ticket) -> ticket.group)
+            .thenComparingLong(ticket -> ticket.draw)
+            .thenComparing(ticket -> ticket.applicant.getNric());
+
+    private final ProjectService projectService;
+
+    public BallotEngine(ProjectService projectService) {
+        this.projectService = projectService;
+    }
+
+    /* A seed for a new draw (print it, the same seed draws the same result again) */
+    public static long newSeed() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    public Result ballot(Project project, long seed) {
+        return ballot(List.of(project), seed).get(0);
+    }
+
+    /* Draws every project (in parallel), then saves every decision at once. Results are in the order of projects */
+    public List<Result> ballot(Collection<Project> projects, long seed) {
+        List<Project> toDraw = new ArrayList<>(projects);
+        if (toDraw.isEmpty()) return new ArrayList<>();
+
+        List<Result> results = ForkJoinPool.commonPool().invoke(new DrawTask(toDraw, 0, toDraw.size(), seed));
+
+        List<Applicant> changed = new ArrayList<>();
+        for (Result result : results) {
+            changed.addAll(result.decided.keySet());
+        }
+        boolean saved = Repositories.applicants().saveAll(changed);
+        for (Result result : results) {
+            result.saved = saved;
+            if (saved) {
+                leave(result);
+            } else {
+                undo(result);
+            }
+        }
+        return results;
+    }
+
+    // Takes the rejected applicants out of the project, after their UNSUCCESSFUL status is saved
+    private void leave(Result result) {
+        Project project = result.project;
+        ReentrantLock projectLock = projectService.projectLock(project);
+        projectLock.lock();
+        try {
+            List<String> nrics = new ArrayList<>(result.leaving.size());
+            for (Applicant applicant : result.leaving) {
+                nrics.add(applicant.getNric());
+            }
+            // If this append fails they stay listed as UNSUCCESSFUL, like a reject whose applicant never withdrew
+            projectService.removeApplicants(project, nrics);
+
+            ApplicationStatusIndex statusIndex = projectService.getApplicationStatusIndex();
+            for (Applicant applicant : result.leaving) {
+                statusIndex.update(project, applicant);
+            }
+        } finally {
+            projectLock.unlock();
+        }
+    }
+
+    // Puts every applicant the ballot decided back to PENDING, unless another session moved it on meanwhile
+    private void undo(Result result) {
+        Project project = result.project;
+        ApplicationStatusIndex statusIndex = projectService.getApplicationStatusIndex();
+
+        ReentrantLock projectLock = projectService.projectLock(project);
+        projectLock.lock();
+        try {
+            for (Map.Entry<Applicant, Applicant.AppStatusType> decision : result.decided.entrySet()) {
+                Applicant applicant = decision.getKey();
+                ReentrantLock applicantLock = projectService.userLock(applicant.getNric());
+                applicantLock.lock();
+                try {
+                    if (applicant.getApplicationStatus() == decision.getValue()) {
+                        statusIndex.transition(project, applicant, Applicant.AppStatusType.PENDING);
+                    }
+                } finally {
+                    applicantLock.unlock();
+                }
+            }
+        } finally {
+            projectLock.unlock();
+        }
+    }
+
+    /* Splits the projects in half until ONE is left, then draws it */
+    // Serializable only because every ForkJoinTask is, a draw never leaves the pool it runs on
+    private class DrawTask extends RecursiveTask<List<Result>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Project> projects;
+        private final int from; // inclusive
+        private final int to;   // exclusive
+        private final long seed;
+
+        DrawTask(List<Project> projects, int from, int to, long seed) {
+            this.projects = projects;
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+        }
+
+        @Override
+        protected List<Result> compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                DrawTask left = new DrawTask(projects, from, mid, seed);
+                DrawTask right = new DrawTask(projects, mid, to, seed);
+                left.fork();
+                List<Result> rightResults = right.compute();
+                List<Result> leftResults = left.join();
+                leftResults.addAll(rightResults);
+                return leftResults;
+            }
+
+            List<Result> results = new ArrayList<>();
+            results.add(draw(projects.get(from), seed));
+            return results;
+        }
+    }
+
+    private Result draw(Project project, long seed) {
+        Result result = new Result(project);
+        ApplicationStatusIndex statusIndex = projectService.getApplicationStatusIndex();
+
+        ReentrantLock projectLock = projectService.projectLock(project);
+        projectLock.lock();
+        try {
+            FlatInventory inventory = projectService.getFlatInventory();
+            Map<FlatType, Integer> places = new EnumMap<>(FlatType.class);
+            for (FlatType flatType : FlatType.values()) {
+                int held = inventory.heldUnits(project, flatType);
+                places.put(flatType, held + project.getUnits(flatType));
+            }
+            for (Applicant applicant : statusIndex.applicants(project, Applicant.AppStatusType.SUCCESSFUL)) {
+                if (applicant.getFlatTypeApplied() != null) places.merge(applicant.getFlatTypeApplied(), -1, Integer::sum);
+            }
+
+            List<Applicant> rejected = new ArrayList<>();
+            List<Ticket> tickets = new ArrayList<>();
+            for (Applicant applicant : statusIndex.applicants(project, Applicant.AppStatusType.PENDING)) {
+                FlatType flatType = applicant.getFlatTypeApplied();
+                if (flatType == null || !ApplicantService.isEligible(applicant, flatType)) {
+                    rejected.add(applicant);
+                    result.ineligible++;
+                    continue;
+                }
+                tickets.add(new Ticket(applicant, priorityGroup(applicant), drawNumber(seed, project.getName(), applicant.getNric())));
+            }
+            tickets.sort(DRAW_ORDER);
+
+            for (Ticket ticket : tickets) {
+                FlatType flatType = ticket.applicant.getFlatTypeApplied();
+                int left = places.getOrDefault(flatType, 0);
+                if (left > 0 && decide(project, ticket.applicant, Applicant.AppStatusType.SUCCESSFUL, result)) {
+                    places.put(flatType, left - 1);
+                    result.approved.merge(flatType, 1, Integer::sum);
+                } else if (left <= 0) {
+                    rejected.add(ticket.applicant);
+                }
+            }
+
+            // UNSUCCESSFUL now, out of the project only after the save (see ballot)
+            for (Applicant applicant : rejected) {
+                if (decide(project, applicant, Applicant.AppStatusType.UNSUCCESSFUL, result)) {
+                    result.leaving.add(applicant);
+                    result.unsuccessful++;
+                }
+            }
+        } finally {
+            projectLock.unlock();
+        }
+        return result;
+    }
+
+    // Moves ONE still pending applicant to its outcome, false if it was decided elsewhere meanwhile
+    private boolean decide(Project project, Applicant applicant, Applicant.AppStatusType status, Result result) {
+        ReentrantLock applicantLock = projectService.userLock(applicant.getNric());
+        applicantLock.lock();
+        try {
+            if (applicant.getApplicationStatus() != Applicant.AppStatusType.PENDING) return false;
+
+            projectService.getApplicationStatusIndex().transition(project, applicant, status);
+            result.decided.put(applicant, status);
+            return true;
+        } finally {
+            applicantLock.unlock();
+        }
+    }
+
+    // Lower goes first: families, then singles
+    private static int priorityGroup(Applicant applicant) {
+        return applicant.getMaritalStatus() == MaritalStatus.MARRIED ? 0 : 1;
+    }
+
+    // SplitMix64 over the seed, project and NRIC: String.hashCode is fixed by the language spec, so this is stable across runs
+    private static long drawNumber(long seed, String projectName, String nric) {
+        long hash = mix(seed ^ projectName.toUpperCase().hashCode());
+        return mix(hash ^ nric.toUpperCase().hashCode());
+    }
+
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
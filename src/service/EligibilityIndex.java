@@ -0,0 +1,56 @@
+package src.service;
+
+import src.model.FlatType;
+import src.model.Project;
+
+import java.util.*;
+
+/**
+ * Open & visible projects, bucketed by which flat types still have units, so an applicant's eligible projects
+ * are read from one or two buckets instead of checking dates, visibility and units of every project.
+ */
+public class EligibilityIndex {
+    /*
+    Buckets (a project is in at most ONE of them):
+    - twoRoom       : open, visible, 2-Room units left (3-Room may or may not have units)
+    - threeRoomOnly : open, visible, NO 2-Room units left but 3-Room units left
+    Singles (2-Room only) read twoRoom, married applicants read both.
+
+    - "Open" is the project's cached flag (Project.isOpen), ProjectSchedule flips it when a window starts or ends
+      and ProjectService then calls update(project), like for any other change
+    - Anything that changes a project's units, dates or visibility must call update(project) afterwards,
+      ProjectService.projectChanged does that for the services
+     */
+    private final Set<Project> twoRoom = new LinkedHashSet<>();
+    private final Set<Project> threeRoomOnly = new LinkedHashSet<>();
+
+    /* Open & visible projects with 2-Room units left */
+    public synchronized List<Project> projectsWithTwoRoomUnits() {
+        return new ArrayList<>(twoRoom);
+    }
+
+    /* Open & visible projects with units left of ANY flat type */
+    public synchronized List<Project> projectsWithAnyUnits() {
+        List<Project> projects = new ArrayList<>(twoRoom.size() + threeRoomOnly.size());
+        projects.addAll(twoRoom);
+        projects.addAll(threeRoomOnly);
+        return projects;
+    }
+
+    /* Moves a project to the bucket it belongs in now (or out of both) */
+    public synchronized void update(Project project) {
+        remove(project);
+        if (!project.isVisible() || !project.isOpen()) return;
+
+        if (project.hasAvailableUnits(FlatType.TWO_ROOM)) {
+            twoRoom.add(project);
+        } else if (project.hasAvailableUnits(FlatType.THREE_ROOM)) {
+            threeRoomOnly.add(project);
+        }
+    }
+
+    public synchronized void remove(Project project) {
+        twoRoom.remove(project);
+        threeRoomOnly.remove(project);
+    }
+}
@@ -0,0 +1,225 @@
+package src.service;
+
+import src.model.FlatType;
+import src.model.Project;
+import src.util.AppConfig;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Holds flat units without locking the project: a booking first reserves ONE unit (taken off the project's count with
+ * compare-and-set), the officer then confirms it, or the hold runs out and the unit goes back on sale.
+ */
+public class FlatInventory {
+    /*
+    Reservation lifecycle (state moves with compare-and-set, exactly ONE of confirm / cancel / expiry wins):
+        reserve()  : units - 1 (CAS loop, fails when 0 is left), then held + 1   -> HELD
+        confirm()  : HELD -> BOOKED, held - 1, the unit stays taken
+        cancel()   : HELD -> RELEASED, held - 1, units + 1
+        expiry     : HELD -> RELEASED after BOOKING_HOLD_SECONDS, held - 1, units + 1
+    So the count a project shows is always "units not held or booked", and two officers can never both get the last one.
+
+    - Taking a hold is lock-free: the only shared writes are the CAS on the project's counter, the held counter and the
+      reservation's state. unitsChanged (the indexes, which ARE synchronized) is only called when a flat type sells out
+      or comes back, the only changes the indexes care about
+    - held (per project and flat type) counts the live holds, so the ballot can tell units that are merely held for an
+      approved applicant from units that are gone: it reads held FIRST and then units, and a reserve in between takes
+      the unit off units BEFORE adding it to held, so it can only make the ballot short of a place, never over it
+    - Giving a unit back (cancel / expiry) and confirming run under the project's lock, the one the ballot holds: a
+      release moves held AND units, which no read order can see consistently, and bookFlat moves the applicant to
+      BOOKED in the same critical section as confirm, so the ballot never counts a booked unit as still claimed
+    - Expiry: every hold lasts the same time, so holds expire in the order they were made. They go into a lock-free
+      FIFO queue and ONE daemon thread polls the head every SWEEP interval, releasing holds that are past their time
+      (confirmed / cancelled ones are just dropped). confirm() also refuses a hold that is past its time but not swept
+      yet, so a hold never lasts longer than promised
+    - Every failed CAS (another booking changed the count in between) is counted in casRetries, a high number next to
+      few reservations means a hot project
+    - A manager overwriting the unit count while holds are open is not corrected for, released holds add on top of it
+     */
+    private static final int HELD = 0;
+    private static final int BOOKED = 1;
+    private static final int RELEASED = 2;
+
+    public static final class Reservation {
+        private final Project project;
+        private final FlatType flatType;
+        private final String applicantNric;
+        private final long expiresAtMillis;
+        private final AtomicInteger state = new AtomicInteger(HELD);
+
+        private Reservation(Project project, FlatType flatType, String applicantNric, long expiresAtMillis) {
+            this.project = project;
+            this.flatType = flatType;
+            this.applicantNric = applicantNric;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public Project getProject() {
+            return project;
+        }
+
+        public FlatType getFlatType() {
+            return flatType;
+        }
+
+        public String getApplicantNric() {
+            return applicantNric;
+        }
+
+        public long secondsLeft() {
+            return Math.max(0, (expiresAtMillis - System.currentTimeMillis()) / 1000);
+        }
+    }
+
+    private final Consumer<Project> unitsChanged;
+    private final Function<Project, ReentrantLock> projectLock;
+    private final long holdMillis;
+    private final Map<Project, AtomicIntegerArray> held = new ConcurrentHashMap<>(); // Live holds, by FlatType ordinal
+    private final Queue<Reservation> holds = new ConcurrentLinkedQueue<>(); // In expiry order
+
+    private final LongAdder reserved = new LongAdder();
+    private final LongAdder soldOut = new LongAdder();
+    private final LongAdder confirmed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder casRetries = new LongAdder();
+
+    /*
+      unitsChanged is called after a project's count changed (e.g. ProjectService.projectChanged for the indexes),
+      projectLock gives the lock confirm / cancel / expiry take (ProjectService.projectLock)
+     */
+    public FlatInventory(Consumer<Project> unitsChanged, Function<Project, ReentrantLock> projectLock) {
+        this(unitsChanged, projectLock, TimeUnit.SECONDS.toMillis(AppConfig.BOOKING_HOLD_SECONDS));
+    }
+
+    public FlatInventory(Consumer<Project> unitsChanged, Function<Project, ReentrantLock> projectLock, long holdMillis) {
+        this.unitsChanged = unitsChanged;
+        this.projectLock = projectLock;
+        this.holdMillis = holdMillis;
+
+        ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "flat-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMillis = Math.max(10, Math.min(1000, holdMillis / 4));
+        sweeper.scheduleWithFixedDelay(this::expireHolds, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /* Holds one unit of this flat type for the applicant, null if the project has none left */
+    public Reservation reserve(Project project, FlatType flatType, String applicantNric) {
+        int units;
+        while (true) {
+            units = project.getUnits(flatType);
+            if (units <= 0) {
+                soldOut.increment();
+                return null;
+            }
+            if (project.compareAndSetUnits(flatType, units, units - 1)) break;
+            casRetries.increment();
+        }
+
+        heldOf(project).incrementAndGet(flatType.ordinal()); // After the unit is off the count, see held above
+
+        Reservation reservation = new Reservation(project, flatType, applicantNric, System.currentTimeMillis() + holdMillis);
+        holds.add(reservation);
+        reserved.increment();
+
+        if (units == 1) unitsChanged.accept(project); // Took the last one
+        return reservation;
+    }
+
+    /*
+      Turns the hold into a booking, false if it already expired or was cancelled (the unit is back on sale then).
+      Takes the project's lock, the caller should already hold it while it books the applicant too
+     */
+    public boolean confirm(Reservation reservation) {
+        ReentrantLock lock = projectLock.apply(reservation.project);
+        lock.lock();
+        try {
+            if (System.currentTimeMillis() >= reservation.expiresAtMillis) {
+                expire(reservation); // Due, the sweeper just hasn't got to it yet
+                return false;
+            }
+            if (!reservation.state.compareAndSet(HELD, BOOKED)) return false;
+
+            heldOf(reservation.project).decrementAndGet(reservation.flatType.ordinal());
+            confirmed.increment();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* Units of this flat type held for a booking right now (taken off the project's count, but not booked yet) */
+    public int heldUnits(Project project, FlatType flatType) {
+        AtomicIntegerArray counts = held.get(project);
+        return counts == null ? 0 : counts.get(flatType.ordinal());
+    }
+
+    /* Gives the held unit back, false if the hold was already booked or released */
+    public boolean cancel(Reservation reservation) {
+        if (!release(reservation)) return false;
+
+        cancelled.increment();
+        return true;
+    }
+
+    // Runs on the sweeper thread: releases every hold at the head of the queue that is past its time
+    private void expireHolds() {
+        long now = System.currentTimeMillis();
+        Reservation head;
+        while ((head = holds.peek()) != null && head.expiresAtMillis <= now) {
+            holds.poll();
+            expire(head);
+        }
+    }
+
+    private void expire(Reservation reservation) {
+        if (release(reservation)) expired.increment();
+    }
+
+    private boolean release(Reservation reservation) {
+        Project project = reservation.project;
+        ReentrantLock lock = projectLock.apply(project);
+        lock.lock();
+        try {
+            if (!reservation.state.compareAndSet(HELD, RELEASED)) return false;
+
+            heldOf(project).decrementAndGet(reservation.flatType.ordinal());
+            int units;
+            while (true) {
+                units = project.getUnits(reservation.flatType);
+                if (project.compareAndSetUnits(reservation.flatType, units, units + 1)) break;
+                casRetries.increment();
+            }
+
+            if (units == 0) unitsChanged.accept(project); // Back on sale
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private AtomicIntegerArray heldOf(Project project) {
+        return held.computeIfAbsent(project, p -> new AtomicIntegerArray(FlatType.values().length));
+    }
+
+    /* One line summary of the bookings so far and how contended the counters were */
+    public String statsSummary() {
+        return String.format("Flat inventory: %d held, %d booked, %d cancelled, %d expired, %d sold out, %d CAS retries",
+                reserved.sum(), confirmed.sum(), cancelled.sum(), expired.sum(), soldOut.sum(), casRetries.sum());
+    }
+}
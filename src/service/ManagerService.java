@@ -1,14 +1,16 @@
 package src.service;
 
+import src.model.Applicant;
 import src.model.Manager;
 import src.model.Project;
 import src.model.Officer;
-import src.util.CSVWriter;
+import src.repository.Repositories;
 import src.util.InputValidator;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 public class ManagerService {
 
@@ -22,14 +24,14 @@ public class ManagerService {
 
     // Option 1: View all projects
     public void viewAllProjects(Manager manager) {
-        Map<String, Project> projects = projectService.getAllProjects();
+        List<Project> projects = projectService.findProjects(ProjectQuery.all()); // Sorted by name
         if (projects.isEmpty()) {
             System.out.println("📭 No projects found.");
             return;
         }
 
         System.out.println("=== All Projects ===");
-        for (Project p : projects.values()) {
+        for (Project p : projects) {
             System.out.printf("📌 %s (%s)\n", p.getName(), p.getNeighbourhood());
             System.out.printf("   2-Room: %d units @ $%f\n", p.getTwoRoomUnits(), p.getTwoRoomPrice());
             System.out.printf("   3-Room: %d units @ $%f\n", p.getThreeRoomUnits(), p.getThreeRoomPrice());
@@ -41,8 +43,6 @@ public class ManagerService {
 
     // Option 2: Create new project
     public void createProject(Manager manager) {
-        Scanner sc = new Scanner(System.in);
-
         System.out.println("=== Create New Project ===");
         String name = InputValidator.getNonEmptyString("Enter project name: ");
 
@@ -62,18 +62,12 @@ public class ManagerService {
         LocalDate openDate = InputValidator.getDate("Enter open date (YYYY-MM-DD): ");
         LocalDate closeDate = InputValidator.getDate("Enter close date (YYYY-MM-DD): ");
 
-        LocalDate today = LocalDate.now();
-        boolean isVisible = (today.isEqual(openDate) || today.isAfter(openDate)) &&
-                (today.isBefore(closeDate) || today.isEqual(closeDate));
-
-
         int officerSlots = InputValidator.getIntInRange("Enter number of officer slots: ", 1, 10);
 
-        Project project = new Project(name, neighbourhood, twoRoomUnits, twoRoomPrice, threeRoomUnits, threeRoomPrice, openDate, closeDate, manager.getName(), officerSlots, null, manager.getNric(), null, null, isVisible);
+        Project project = new Project(name, neighbourhood, twoRoomUnits, twoRoomPrice, threeRoomUnits, threeRoomPrice, openDate, closeDate, manager.getName(), officerSlots, new ArrayList<>(), manager.getNric(), new ArrayList<>(), null, false);
 
-        // Add to service and persist
-        projectService.getAllProjects().put(name, project);
-        boolean createdProjectSuccessfully = CSVWriter.saveNewProject(project, "data/ProjectList.csv");
+        // Add to service and persist (visibility is set from the open/close dates there)
+        boolean createdProjectSuccessfully = projectService.createProject(project);
         System.out.println(createdProjectSuccessfully ? "✅ Project created successfully!" : "❌ Failed to create project!");
     }
 
@@ -84,6 +78,7 @@ public class ManagerService {
 
         if (project == null) {
             System.out.println("❌ Project not found.");
+            projectService.printSuggestions(currentProjectName);
             return;
         }
 
@@ -92,8 +87,6 @@ public class ManagerService {
             return;
         }
 
-        Scanner sc = new Scanner(System.in);
-
         while (true) {
             int choice;
 
@@ -112,56 +105,48 @@ public class ManagerService {
 
             switch (choice) {
                 case 1 -> {
-                    System.out.print("Enter new project name: ");
-                    String newName = sc.nextLine().trim();
+                    String newName = InputValidator.getLine("Enter new project name: ").trim();
                     if (projectService.getProjectByName(newName) != null) {
                         System.out.println("⚠️ Project name already exists.");
                     } else {
-                        String oldName = project.getName();
-                        projectService.getAllProjects().remove(currentProjectName);
-                        project.setName(newName);
-                        projectService.getAllProjects().put(newName, project);
-                        currentProjectName = newName;
-                        boolean saveSuccessful = CSVWriter.saveRenameProject(oldName, newName,"data/ProjectList.csv");
+                        boolean saveSuccessful = projectService.renameProject(project, newName);
+                        currentProjectName = project.getName();
                         System.out.println(saveSuccessful ? "✅ Project renamed.\n" : "❌ Failed to save project!");
                     }
                 }
                 case 2 -> {
-                    System.out.print("New 2-Room units: ");
-                    project.setTwoRoomUnits(Integer.parseInt(sc.nextLine()));
-
-                    System.out.print("New 2-Room price: ");
-                    project.setTwoRoomPrice(Integer.parseInt(sc.nextLine()));
-
-                    System.out.print("New 3-Room units: ");
-                    project.setThreeRoomUnits(Integer.parseInt(sc.nextLine()));
-
-                    System.out.print("New 3-Room price: ");
-                    project.setThreeRoomPrice(Integer.parseInt(sc.nextLine()));
-
-                    boolean saveSuccessful = CSVWriter.saveProject(project, "data/ProjectList.csv");
+                    // Everything is read first, the project is only locked for the change itself
+                    int twoRoomUnits = Integer.parseInt(InputValidator.getLine("New 2-Room units: "));
+                    int twoRoomPrice = Integer.parseInt(InputValidator.getLine("New 2-Room price: "));
+                    int threeRoomUnits = Integer.parseInt(InputValidator.getLine("New 3-Room units: "));
+                    int threeRoomPrice = Integer.parseInt(InputValidator.getLine("New 3-Room price: "));
+
+                    boolean saveSuccessful = changeProject(project, edited -> {
+                        edited.setTwoRoomUnits(twoRoomUnits);
+                        edited.setTwoRoomPrice(twoRoomPrice);
+                        edited.setThreeRoomUnits(threeRoomUnits);
+                        edited.setThreeRoomPrice(threeRoomPrice);
+                    });
                     System.out.println(saveSuccessful ? "✅ Unit and prices updated.\n" : "❌ Failed to save project!");
                 }
                 case 3 -> {
-                    System.out.print("New open date (YYYY-MM-DD): ");
-                    project.setOpenDate(LocalDate.parse(sc.nextLine()));
-
-                    System.out.print("New close date (YYYY-MM-DD): ");
-                    project.setCloseDate(LocalDate.parse(sc.nextLine()));
+                    LocalDate openDate = LocalDate.parse(InputValidator.getLine("New open date (YYYY-MM-DD): "));
+                    LocalDate closeDate = LocalDate.parse(InputValidator.getLine("New close date (YYYY-MM-DD): "));
 
-                    boolean saveSuccessful = CSVWriter.saveProject(project, "data/ProjectList.csv");
+                    boolean saveSuccessful = changeProject(project, edited -> {
+                        edited.setOpenDate(openDate);
+                        edited.setCloseDate(closeDate);
+                    });
                     System.out.println(saveSuccessful ? "✅ Dates updated.\n" : "❌ Failed to save project!");
                 }
                 case 4 -> {
-                    project.setVisibility(!project.isVisible());
+                    boolean saveSuccessful = changeProject(project, edited -> edited.setVisibility(!edited.isVisible()));
                     System.out.println("✅ Visibility set to: " + project.isVisible() + "\n");
-
-                    boolean saveSuccessful = CSVWriter.saveProject(project, "data/ProjectList.csv");
                     System.out.println(saveSuccessful ? "✅ Visibility updated.\n" : "❌ Failed to save project!");
                 }
                 case 0 -> {
                     // Save and exit
-                    boolean saveSuccessful = CSVWriter.saveProject(project, "data/ProjectList.csv");
+                    boolean saveSuccessful = Repositories.projects().save(project);
                     System.out.println(saveSuccessful ? "✅ Changes saved.\n" : "❌ Failed to save the project, reverting project info to original.\n");
 
                     if (!saveSuccessful) {
@@ -175,33 +160,34 @@ public class ManagerService {
         }
     }
 
+    // Applies an edit under the project's lock, then updates the indexes and saves it
+    private boolean changeProject(Project project, Consumer<Project> change) {
+        ReentrantLock lock = projectService.projectLock(project);
+        lock.lock();
+        try {
+            change.accept(project);
+            projectService.projectChanged(project);
+            return Repositories.projects().save(project);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     // Option 4: View pending officer registrations for approval
+    // Only walks this manager's projects and their pending officers (both indexed by ProjectService)
     public void viewOfficerRegistrations(Manager manager) {
-        Map<String, Officer> officers = userService.getAllOfficers();
-        Map<String, Project> projects = projectService.getAllProjects();
-
         boolean found = false;
 
         System.out.println("=== Pending Officer Registrations for Your Projects ===");
 
-        for (Officer officer : officers.values()) {
-            // Skip if not pending
-            if (!Officer.RegistrationStatusType.PENDING.name().equalsIgnoreCase(officer.getRegistrationStatus())) continue;
-
-            String assignedProject = officer.getAssignedProjectName();
-            if (assignedProject == null || assignedProject.isBlank()) continue;
-
-            Project project = projects.get(assignedProject);
-            if (project == null) continue;
-
-            // Skip if the project isn't owned by this manager
-            if (!manager.getNric().equalsIgnoreCase(project.getManagerNRIC())) continue;
-
-            found = true;
+        for (Project project : projectService.getProjectsByManager(manager.getNric())) {
+            for (Officer officer : projectService.getPendingOfficers(project)) {
+                found = true;
 
-            System.out.printf("👤 Name: %s | NRIC: %s\n", officer.getName(), officer.getNric());
-            System.out.printf("   Assigned Project: %s\n", assignedProject);
-            System.out.printf("   Available Officer Slots: %d\n", project.getOfficerSlot() - project.getOfficerNRICs().size());
+                System.out.printf("👤 Name: %s | NRIC: %s\n", officer.getName(), officer.getNric());
+                System.out.printf("   Assigned Project: %s\n", project.getName());
+                System.out.printf("   Available Officer Slots: %d\n", project.getOfficerSlot() - project.getOfficerNRICs().size());
+            }
         }
 
         if (!found) {
@@ -217,7 +203,7 @@ public class ManagerService {
             return;
         }
 
-        if (!"PENDING".equalsIgnoreCase(officer.getRegistrationStatus())) {
+        if (officer.getRegistrationStatus() != Officer.RegistrationStatusType.PENDING) {
             System.out.println("⚠️ Officer is not pending approval.");
             return;
         }
@@ -239,48 +225,94 @@ public class ManagerService {
             return;
         }
 
-        if (approve) {
-            if (project.getOfficerNRICs().size() == project.getOfficerSlot()) {
-                System.out.println("❌ Cannot approve officer. No available officer slots in project.");
+        ReentrantLock projectLock = projectService.projectLock(project);
+        ReentrantLock officerLock = projectService.userLock(officer.getNric());
+        projectLock.lock();
+        officerLock.lock();
+        try {
+            // Checked again under the locks: another manager session may have decided on this officer meanwhile
+            if (officer.getRegistrationStatus() != Officer.RegistrationStatusType.PENDING) {
+                System.out.println("⚠️ Officer is not pending approval.");
                 return;
             }
 
-            officer.setRegistrationStatus(Officer.RegistrationStatusType.APPROVED.name());
-            project.getOfficerNRICs().add(officer.getNric());
-            System.out.println("✅ Officer approved and added to project.");
-        } else {
-            officer.setRegistrationStatus(Officer.RegistrationStatusType.REJECTED.name());
-            officer.setAssignedProjectName(null);
-            System.out.println("❌ Officer rejected.");
+            if (approve) {
+                if (project.getOfficerNRICs().size() >= project.getOfficerSlot()) {
+                    System.out.println("❌ Cannot approve officer. No available officer slots in project.");
+                    return;
+                }
+
+                officer.setRegistrationStatus(Officer.RegistrationStatusType.APPROVED);
+                project.addOfficer(officer.getNric());
+                System.out.println("✅ Officer approved and added to project.");
+            } else {
+                officer.setRegistrationStatus(Officer.RegistrationStatusType.REJECTED);
+                officer.setAssignedProjectName(null);
+                System.out.println("❌ Officer rejected.");
+            }
+
+            projectService.officerRegistrationChanged(officer);
+
+            // Save updated data
+            Repositories.officers().save(officer);
+            Repositories.projects().save(project);
+        } finally {
+            officerLock.unlock();
+            projectLock.unlock();
+        }
+    }
+
+    // Option 7: Ballot the pending applicants of every project of the manager (drawn in parallel, saved at once)
+    public void runBallot(Manager manager) {
+        List<Project> projects = new ArrayList<>();
+        int pending = 0;
+        for (Project project : projectService.getProjectsByManager(manager.getNric())) {
+            int pendingOfProject = projectService.getApplicationStatusIndex().applicants(project, Applicant.AppStatusType.PENDING).size();
+            if (pendingOfProject == 0) continue;
+
+            System.out.println("• " + project.getName() + " — " + pendingOfProject + " pending");
+            projects.add(project);
+            pending += pendingOfProject;
         }
 
-        // Save updated data
-        CSVWriter.updateOfficer(officer, "data/OfficerList.csv");
-        CSVWriter.saveProject(project, "data/ProjectList.csv");
+        if (projects.isEmpty()) {
+            System.out.println("⚠️ None of your projects have pending applicants.");
+            return;
+        }
+
+        if (!InputValidator.getYesNo("Ballot all " + pending + " pending applicants now?")) {
+            System.out.println("Ballot cancelled.");
+            return;
+        }
+
+        long seed = InputValidator.getLongOrDefault("Enter ballot seed (blank for a new draw): ", BallotEngine.newSeed());
+
+        long start = System.nanoTime();
+        List<BallotEngine.Result> results = projectService.getBallotEngine().ballot(projects, seed);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("🎲 Ballot seed: " + seed);
+        for (BallotEngine.Result result : results) {
+            System.out.println("✅ " + result.summary());
+        }
+        System.out.println("Balloted " + results.size() + " project" + (results.size() == 1 ? "" : "s") + " in " + elapsedMillis + " ms.");
+        if (!results.get(0).isSaved()) System.out.println("❌ Failed to save the ballot results, the applications are still pending.");
     }
 
     public Map<String,Project> getProjectsByManagerNric(String managerNric) {
-        Map<String, Project> allProjects = projectService.getAllProjects();
-
         System.out.println("=== Your Projects ===");
-        boolean found = false;
 
-        for (Project project : allProjects.values()) {
-            if (managerNric.equals(project.getManagerNRIC())) {
-                found = true;
-                System.out.println("• " + project.getName() + " (" + project.getNeighbourhood() + ")");
-            }
+        // One pass over the manager's own projects, prints and collects them
+        Map<String, Project> filteredProjects = new LinkedHashMap<>();
+        for (Project project : projectService.getProjectsByManager(managerNric)) {
+            System.out.println("• " + project.getName() + " (" + project.getNeighbourhood() + ")");
+            filteredProjects.put(project.getName(), project);
         }
 
-        if (!found) {
+        if (filteredProjects.isEmpty()) {
             System.out.println("⚠️ You have no projects assigned to you.");
         }
 
-        Map<String, Project> filteredProjects = allProjects.entrySet().stream()
-                .filter(entry -> managerNric.equals(entry.getValue().getManagerNRIC()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-
         return filteredProjects;
-
     }
 }
@@ -3,16 +3,17 @@ package src.service;
 import src.model.Officer;
 import src.model.Project;
 import src.model.Applicant;
-import src.util.CSVWriter;
+import src.model.FlatType;
+import src.repository.Repositories;
 import src.util.InputValidator;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class OfficerService {
+    private static final int UPCOMING_DAYS = 30;
 
     private final ProjectService projectService;
     private final UserService userService;
@@ -23,25 +24,18 @@ public class OfficerService {
     }
 
     private void printVacantProjects(ProjectService projectService) {
-        Map<String, Project> allProjects = projectService.getAllProjects();
-
         System.out.println("=== Vacant Projects (Open & Visible) ===");
         boolean found = false;
 
-        LocalDate today = LocalDate.now();
-
-        for (Project project : allProjects.values()) {
-            // Only include projects that are:
-            // 1. Visible
-            // 2. Application window is open
-            // 3. Officer slots are not fully filled
-            boolean isVisible = project.isVisible();
-            boolean isOpen = (today.isEqual(project.getOpenDate()) || today.isAfter(project.getOpenDate())) &&
-                    (today.isBefore(project.getCloseDate()) || today.isEqual(project.getCloseDate()));
+        // Only include projects that are:
+        // 1. Visible
+        // 2. Application window is open
+        // 3. Officer slots are not fully filled
+        for (Project project : projectService.findProjects(ProjectQuery.all().visibleOnly().openOnly())) {
             int assigned = project.getOfficerNRICs().size();
             int allowed = project.getOfficerSlot();
 
-            if (isVisible && isOpen && assigned < allowed) {
+            if (assigned < allowed) {
                 found = true;
                 System.out.printf("• %s (%s) — %d Vacant Officer Slot%s\n\n",
                         project.getName(),
@@ -55,6 +49,15 @@ public class OfficerService {
         if (!found) {
             System.out.println("⚠️ No projects currently open and available for officer registration.\n");
         }
+
+        List<Project> upcoming = projectService.getProjectsOpeningWithin(UPCOMING_DAYS);
+        if (!upcoming.isEmpty()) {
+            System.out.println("💡 Opening in the next " + UPCOMING_DAYS + " days:");
+            for (Project project : upcoming) {
+                System.out.printf("• %s (%s) — opens %s\n", project.getName(), project.getNeighbourhood(), project.getOpenDate());
+            }
+            System.out.println();
+        }
     }
 
     // 1. Officer requests to register for a project
@@ -74,21 +77,37 @@ public class OfficerService {
         Project project = projectService.getProjectByName(projectName);
         if (project == null) {
             System.out.println("❌ Project not found.");
+            projectService.printSuggestions(projectName);
             return false;
         }
 
-        // Check if project has space for more officers
-        int maxSlots = project.getOfficerSlot(); // Assuming this method exists
-        if (project.getOfficerNRICs().size() >= maxSlots) {
-            System.out.println("⚠️ This project has reached its maximum officer capacity.");
-            return false;
-        }
+        ReentrantLock projectLock = projectService.projectLock(project);
+        ReentrantLock officerLock = projectService.userLock(officer.getNric());
+        projectLock.lock();
+        officerLock.lock();
+        try {
+            if (officer.getAssignedProjectName() != null && !officer.getAssignedProjectName().isEmpty()) {
+                System.out.println("⚠️ You have already applied for project " + officer.getAssignedProjectName());
+                return false;
+            }
+
+            // Check if project has space for more officers
+            int maxSlots = project.getOfficerSlot(); // Assuming this method exists
+            if (project.getOfficerNRICs().size() >= maxSlots) {
+                System.out.println("⚠️ This project has reached its maximum officer capacity.");
+                return false;
+            }
 
-        // Register the officer
-        officer.setAssignedProjectName(projectName);
-        officer.setRegistrationStatus("PENDING");
+            // Register the officer
+            officer.setAssignedProjectName(projectName);
+            officer.setRegistrationStatus(Officer.RegistrationStatusType.PENDING);
+            projectService.officerRegistrationChanged(officer);
 
-        CSVWriter.updateOfficer(officer, "data/OfficerList.csv");
+            Repositories.officers().save(officer);
+        } finally {
+            officerLock.unlock();
+            projectLock.unlock();
+        }
 
         System.out.println("✅ Registration submitted for project: " + projectName);
         return true;
@@ -97,14 +116,14 @@ public class OfficerService {
     // 2. View assigned project details
     public void viewAssignedProject(Officer officer) {
         String assignedProject = officer.getAssignedProjectName();
-        String status = officer.getRegistrationStatus();
+        Officer.RegistrationStatusType status = officer.getRegistrationStatus();
 
         if (assignedProject == null || assignedProject.isBlank()) {
             System.out.println("⚠️ You have not registered for any project.");
             return;
         }
 
-        if (!status.equalsIgnoreCase("APPROVED")) {
+        if (status != Officer.RegistrationStatusType.APPROVED) {
             System.out.println("⚠️ Your registration is still " + status + " for " + assignedProject + ". You can only view the project after approval.");
             return;
         }
@@ -129,14 +148,14 @@ public class OfficerService {
     // PENDING, SUCCESSFUL and UNSUCCESSFUL are all SHOWN but grouped together
     public void viewApplicantList(Officer officer) {
         String projectName = officer.getAssignedProjectName();
-        String status = officer.getRegistrationStatus();
+        Officer.RegistrationStatusType status = officer.getRegistrationStatus();
 
         if (projectName == null || projectName.isBlank()) {
             System.out.println("⚠️ You are not assigned to any project.");
             return;
         }
 
-        if (!status.equalsIgnoreCase(Officer.RegistrationStatusType.APPROVED.name())) {
+        if (status != Officer.RegistrationStatusType.APPROVED) {
             System.out.println("⚠️ You can only view applicants after your registration is approved.");
             return;
         }
@@ -147,8 +166,7 @@ public class OfficerService {
             return;
         }
 
-        List<String> nricList = project.getApplicantNRICs();
-        if (nricList.isEmpty()) {
+        if (projectService.getApplicantCount(project) == 0) {
             System.out.println("📭 No applicants have applied yet.");
             return;
         }
@@ -158,28 +176,15 @@ public class OfficerService {
         // HashMap ordering: PENDING SUCCESFUL UNSUCCESSFUL OR COULD BE UNSUCCESSFUL PENDING SUCCESSFUL, THE ORDER IS DETERMINED BY INTERNAL HASHING
         // LinkedHashMap ordering: PENDING SUCCESSFUL UNSUCCESSFUL, THIS ORDER IS FIXED ALWAYS.
         // An alternative to using any additional memory / hashmaps would be to just print and filter but i want to make this as dynamic as possible...
-        Map<String, List<Applicant>> grouped = new LinkedHashMap<>();
-        grouped.put(Applicant.AppStatusType.PENDING.name(), new ArrayList<>());
-        grouped.put(Applicant.AppStatusType.SUCCESSFUL.name(), new ArrayList<>());
-        grouped.put(Applicant.AppStatusType.UNSUCCESSFUL.name(), new ArrayList<>());
-
-        for (String nric : nricList) {
-            Applicant applicant = userService.getApplicantByNric(nric);
-            if (applicant == null) continue;
-
-            // Ensure the applicant actually applied to this officer's assigned project else just SKIP
-            if (!projectName.equalsIgnoreCase(applicant.getAppliedProjectName())) continue;
-
-            String appStatus = applicant.getApplicationStatus();
-            if (!grouped.containsKey(appStatus)) {
-                grouped.put(appStatus, new ArrayList<>());
-            }
-
-            grouped.get(appStatus).add(applicant);
-        }
+        // Each group is read straight from the project's status partitions (which only hold applicants that applied to THIS project)
+        ApplicationStatusIndex statusIndex = projectService.getApplicationStatusIndex();
+        Map<Applicant.AppStatusType, List<Applicant>> grouped = new LinkedHashMap<>();
+        grouped.put(Applicant.AppStatusType.PENDING, statusIndex.applicants(project, Applicant.AppStatusType.PENDING));
+        grouped.put(Applicant.AppStatusType.SUCCESSFUL, statusIndex.applicants(project, Applicant.AppStatusType.SUCCESSFUL));
+        grouped.put(Applicant.AppStatusType.UNSUCCESSFUL, statusIndex.applicants(project, Applicant.AppStatusType.UNSUCCESSFUL));
 
         // Display grouped applicants
-        for (String group : List.of(Applicant.AppStatusType.PENDING.name(), Applicant.AppStatusType.SUCCESSFUL.name(), Applicant.AppStatusType.UNSUCCESSFUL.name())) {
+        for (Applicant.AppStatusType group : List.of(Applicant.AppStatusType.PENDING, Applicant.AppStatusType.SUCCESSFUL, Applicant.AppStatusType.UNSUCCESSFUL)) {
             List<Applicant> list = grouped.get(group);
             if (list.isEmpty()) continue;
 
@@ -202,7 +207,7 @@ public class OfficerService {
             return false;
         }
 
-        if (!officer.getRegistrationStatus().equalsIgnoreCase(Officer.RegistrationStatusType.APPROVED.name())) {
+        if (officer.getRegistrationStatus() != Officer.RegistrationStatusType.APPROVED) {
             System.out.println("⚠️ Your registration status has not been approved for " + officer.getAssignedProjectName());
             return false;
         }
@@ -214,14 +219,8 @@ public class OfficerService {
             return false;
         }
 
-        List<Applicant> pendingApplicants = new ArrayList<Applicant>();
-
-        for (int i = 0; i < project.getApplicantNRICs().size(); i++) {
-            Applicant applicant = userService.getApplicantByNric(project.getApplicantNRICs().get(i));
-            if (applicant.getApplicationStatus().equalsIgnoreCase(Applicant.AppStatusType.PENDING.name())) {
-                pendingApplicants.add(applicant);
-            }
-        }
+        ApplicationStatusIndex statusIndex = projectService.getApplicationStatusIndex();
+        List<Applicant> pendingApplicants = statusIndex.applicants(project, Applicant.AppStatusType.PENDING);
 
         if (pendingApplicants.isEmpty()) {
             System.out.println("⚠️ You have no applicants to approve/reject for " + officer.getAssignedProjectName() + ".");
@@ -241,25 +240,39 @@ public class OfficerService {
             return false;
         }
 
-        String status = applicant.getApplicationStatus();
-        if (!status.equalsIgnoreCase(Applicant.AppStatusType.PENDING.name())) {
+        Applicant.AppStatusType status = applicant.getApplicationStatus();
+        if (status != Applicant.AppStatusType.PENDING) {
             System.out.println("⚠️ Applicant has already been processed (" + status + ").");
             return false;
         }
 
         boolean approve = InputValidator.getYesNo("Approve this applicant?");
 
-        if (approve) {
-            applicant.setApplicationStatus(Applicant.AppStatusType.SUCCESSFUL.name());
-            System.out.println("✅ Applicant " + applicantNRIC + " approved.");
-        } else {
-            project.getApplicantNRICs().remove(applicant.getNric());
-            applicant.setApplicationStatus(Applicant.AppStatusType.UNSUCCESSFUL.name());
-            System.out.println("❌ Applicant " + applicantNRIC + " rejected.");
-        }
+        ReentrantLock projectLock = projectService.projectLock(project);
+        ReentrantLock applicantLock = projectService.userLock(applicant.getNric());
+        projectLock.lock();
+        applicantLock.lock();
+        try {
+            // Another officer may have processed (or the applicant withdrawn) while this one was answering
+            if (applicant.getApplicationStatus() != Applicant.AppStatusType.PENDING || !projectService.hasApplicant(project, applicant.getNric())) {
+                System.out.println("⚠️ Applicant has already been processed (" + applicant.getApplicationStatus() + ").");
+                return false;
+            }
 
-        CSVWriter.updateApplicant(applicant, "data/ApplicantList.csv");
-        CSVWriter.saveProject(project, "data/ProjectList.csv");
+            if (approve) {
+                statusIndex.transition(project, applicant, Applicant.AppStatusType.SUCCESSFUL);
+                System.out.println("✅ Applicant " + applicantNRIC + " approved.");
+            } else {
+                projectService.removeApplicant(project, applicant.getNric());
+                statusIndex.transition(project, applicant, Applicant.AppStatusType.UNSUCCESSFUL);
+                System.out.println("❌ Applicant " + applicantNRIC + " rejected.");
+            }
+
+            Repositories.applicants().save(applicant);
+        } finally {
+            applicantLock.unlock();
+            projectLock.unlock();
+        }
 
         return true;
     }
@@ -271,6 +284,7 @@ public class OfficerService {
         Not yet SUCCESSFUL
         Project must have units remaining for the selected flat type
 
+        One unit is held while the officer confirms (it is released again if they don't, or take too long)
         Finally, set status to BOOKED
      */
     public boolean bookFlat(Officer officer) {
@@ -279,7 +293,7 @@ public class OfficerService {
             return false;
         }
 
-        if (!officer.getRegistrationStatus().equalsIgnoreCase(Officer.RegistrationStatusType.APPROVED.name())) {
+        if (officer.getRegistrationStatus() != Officer.RegistrationStatusType.APPROVED) {
             System.out.println("⚠️ Your registration status has not been approved for " + officer.getAssignedProjectName());
             return false;
         }
@@ -291,14 +305,8 @@ public class OfficerService {
             return false;
         }
 
-        List<Applicant> approvedApplicants = new ArrayList<Applicant>();
-
-        for (int i = 0; i < project.getApplicantNRICs().size(); i++) {
-            Applicant applicant = userService.getApplicantByNric(project.getApplicantNRICs().get(i));
-            if (applicant.getApplicationStatus().equalsIgnoreCase(Applicant.AppStatusType.SUCCESSFUL.name())) {
-                approvedApplicants.add(applicant);
-            }
-        }
+        ApplicationStatusIndex statusIndex = projectService.getApplicationStatusIndex();
+        List<Applicant> approvedApplicants = statusIndex.applicants(project, Applicant.AppStatusType.SUCCESSFUL);
 
         if (approvedApplicants.isEmpty()) {
             System.out.println("⚠️ You have no approved applicants to set as booked for " + officer.getAssignedProjectName() + ".");
@@ -311,12 +319,9 @@ public class OfficerService {
         }
 
         System.out.println("Applicant List:");
-        for (int i = 0; i < project.getApplicantNRICs().size(); i++) {
-            Applicant projectApplicant = userService.getApplicantByNric(project.getApplicantNRICs().get(i));
-
-            if (projectApplicant.getApplicationStatus().equalsIgnoreCase(Applicant.AppStatusType.PENDING.name())) {
-                System.out.println((i+1) + ". " + projectApplicant.getName() + " (" + projectApplicant.getNric() + ")");
-            }
+        List<Applicant> pendingApplicants = statusIndex.applicants(project, Applicant.AppStatusType.PENDING);
+        for (int i = 0; i < pendingApplicants.size(); i++) {
+            System.out.println((i+1) + ". " + pendingApplicants.get(i).getName() + " (" + pendingApplicants.get(i).getNric() + ")");
         }
 
         String applicantNRIC = InputValidator.getNonEmptyString("Enter applicant NRIC to approve/reject: ");
@@ -326,34 +331,115 @@ public class OfficerService {
             System.out.println("❌ Applicant not found.");
             return false;
         }
+        if (!projectService.hasApplicant(project, applicant.getNric())) {
+            System.out.println("⚠️ Applicant " + applicant.getNric() + " did not apply for " + project.getName() + ".");
+            return false;
+        }
+
+        FlatType flatType = applicant.getFlatTypeApplied();
+        if (flatType == null) {
+            System.out.println("❌ Applicant " + applicant.getNric() + " has no flat type on record.");
+            return false;
+        }
+        if (applicant.getApplicationStatus() != Applicant.AppStatusType.SUCCESSFUL) {
+            System.out.println("⚠️ Only approved applicants can book a flat (" + applicant.getApplicationStatus() + ").");
+            return false;
+        }
+
+        // The unit is held (not locked) while the officer confirms, see FlatInventory
+        FlatInventory inventory = projectService.getFlatInventory();
+        FlatInventory.Reservation reservation = inventory.reserve(project, flatType, applicant.getNric());
+        if (reservation == null) {
+            System.out.println("❌ No more " + flatType + " flats available.");
+            return false;
+        }
 
-        String flatType = applicant.getFlatTypeApplied();
-        if (flatType.equalsIgnoreCase("2-Room")) {
-            if (project.getTwoRoomUnits() == 0) {
-                System.out.println("❌ No more 2-Room flats available.");
+        System.out.println("🔒 One " + flatType + " unit is held for " + applicant.getName() + " for " + reservation.secondsLeft() + " seconds.");
+        if (!InputValidator.getYesNo("Confirm booking?")) {
+            inventory.cancel(reservation);
+            System.out.println("❌ Booking cancelled, the unit is released.");
+            return false;
+        }
+
+        // Confirmed and booked in ONE step under the projectLock, so a ballot never sees the hold gone but the applicant still SUCCESSFUL
+        ReentrantLock projectLock = projectService.projectLock(project);
+        ReentrantLock applicantLock = projectService.userLock(applicant.getNric());
+        projectLock.lock();
+        applicantLock.lock();
+        try {
+            // Another officer may have booked for (or the applicant withdrawn) while this one was confirming
+            if (applicant.getApplicationStatus() != Applicant.AppStatusType.SUCCESSFUL || !projectService.hasApplicant(project, applicant.getNric())) {
+                inventory.cancel(reservation);
+                System.out.println("⚠️ Applicant is no longer approved for booking (" + applicant.getApplicationStatus() + "), the unit is released.");
                 return false;
             }
-            project.setTwoRoomUnits(project.getTwoRoomUnits() - 1);
-        } else if (flatType.equalsIgnoreCase("3-Room")) {
-            if (project.getThreeRoomUnits() == 0) {
-                System.out.println("❌ No more 3-Room flats available.");
+            if (!inventory.confirm(reservation)) {
+                System.out.println("⌛ The hold on the unit expired, please try again.");
                 return false;
             }
-            project.setThreeRoomUnits(project.getThreeRoomUnits() - 1);
-        } else {
-            System.out.println("❌ Unknown flat type: " + flatType);
-            return false;
-        }
 
-        applicant.setApplicationStatus(Applicant.AppStatusType.BOOKED.name());
-        System.out.println("🏠 Flat booked successfully for " + applicantNRIC);
+            statusIndex.transition(project, applicant, Applicant.AppStatusType.BOOKED);
+            System.out.println("🏠 Flat booked successfully for " + applicantNRIC);
 
-        CSVWriter.updateApplicant(applicant, "data/ApplicantList.csv");
+            Repositories.applicants().save(applicant);
+        } finally {
+            applicantLock.unlock();
+            projectLock.unlock();
+        }
 
         return true;
     }
 
 
+    // 8. Decide every pending application of the assigned project at once by ballot
+    /*
+        Officer must be approved
+        Pending applicants are drawn in a seeded random order and approved until the units run out, the rest are rejected
+        The seed is printed, the same seed draws the same result again (see BallotEngine)
+     */
+    public boolean runBallot(Officer officer) {
+        if (officer.getAssignedProjectName() == null || officer.getAssignedProjectName().isEmpty()) {
+            System.out.println("⚠️ You have not applied for any project.");
+            return false;
+        }
+
+        if (officer.getRegistrationStatus() != Officer.RegistrationStatusType.APPROVED) {
+            System.out.println("⚠️ Your registration status has not been approved for " + officer.getAssignedProjectName());
+            return false;
+        }
+
+        Project project = projectService.getProjectByName(officer.getAssignedProjectName());
+
+        if (project == null) {
+            System.out.println("❌ Project not found.");
+            return false;
+        }
+
+        int pending = projectService.getApplicationStatusIndex().applicants(project, Applicant.AppStatusType.PENDING).size();
+        if (pending == 0) {
+            System.out.println("⚠️ You have no applicants to ballot for " + officer.getAssignedProjectName() + ".");
+            return false;
+        }
+
+        System.out.printf("%d pending applicant%s, %d 2-Room and %d 3-Room units left.\n",
+                pending, (pending == 1 ? "" : "s"), project.getTwoRoomUnits(), project.getThreeRoomUnits());
+        if (!InputValidator.getYesNo("Ballot every pending applicant now?")) {
+            System.out.println("Ballot cancelled.");
+            return false;
+        }
+
+        long seed = InputValidator.getLongOrDefault("Enter ballot seed (blank for a new draw): ", BallotEngine.newSeed());
+
+        long start = System.nanoTime();
+        BallotEngine.Result result = projectService.getBallotEngine().ballot(project, seed);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("🎲 Ballot seed: " + seed);
+        System.out.println("✅ " + result.summary() + " (" + elapsedMillis + " ms)");
+        if (!result.isSaved()) System.out.println("❌ Failed to save the ballot results, the applications are still pending.");
+        return result.isSaved();
+    }
+
     // 6. Generate receipt for a booked applicant
     // Applicant must have status = BOOKED
     public void generateReceipt(String applicantNRIC) {
@@ -363,7 +449,7 @@ public class OfficerService {
             return;
         }
 
-        if (!applicant.getApplicationStatus().equalsIgnoreCase(Applicant.AppStatusType.BOOKED.name())) {
+        if (applicant.getApplicationStatus() != Applicant.AppStatusType.BOOKED) {
             System.out.println("⚠️ Receipt can only be generated for booked applicants.");
             return;
         }
@@ -375,8 +461,8 @@ public class OfficerService {
             return;
         }
 
-        String flatType = applicant.getFlatTypeApplied();
-        double price = flatType.equalsIgnoreCase("2-Room") ? project.getTwoRoomPrice() : project.getThreeRoomPrice();
+        FlatType flatType = applicant.getFlatTypeApplied();
+        double price = flatType == FlatType.TWO_ROOM ? project.getTwoRoomPrice() : project.getThreeRoomPrice();
 
         System.out.println("======= Booking Receipt =======");
         System.out.println("Applicant: " + applicant.getName() + " (" + applicant.getNric() + ")");
@@ -0,0 +1,109 @@
+package src.service;
+
+import src.model.Project;
+import src.util.NameIndex;
+
+import java.util.*;
+
+/**
+ * Sorted / hashed indexes over every project so catalog queries (ProjectQuery) read only the projects that can match.
+ */
+public class ProjectCatalog {
+    /*
+    - byNeighbourhood  : case-folded neighbourhood -> projects (a neighbourhood never changes after creation)
+    - byTwoRoomPrice   : 2-Room price -> projects at that price, sorted, so a price range is one subMap
+    - byThreeRoomPrice : same for 3-Room
+    A query starts from the narrowest index it filters on (neighbourhood, then 2-Room price, then 3-Room price, else
+    every project) and checks the remaining filters on those candidates only. Units, dates and visibility change too
+    often to be worth a sorted index, they are only ever checked on the candidates ("open" is the flag ProjectSchedule
+    keeps in Project.isOpen).
+
+    Results are sorted by project name, so the same catalog gives the same order every time.
+    Prices are indexed under the value they had at the last update(project), so call it after every price change.
+     */
+    private static final Comparator<Project> BY_NAME =
+            Comparator.comparing(Project::getName, String.CASE_INSENSITIVE_ORDER).thenComparing(Project::getName);
+
+    private final NameIndex<Project> byNeighbourhood = new NameIndex<>();
+    private final NavigableMap<Double, Set<Project>> byTwoRoomPrice = new TreeMap<>();
+    private final NavigableMap<Double, Set<Project>> byThreeRoomPrice = new TreeMap<>();
+
+    // Every indexed project -> the {2-Room, 3-Room} prices it is filed under
+    private final Map<Project, double[]> indexedPrices = new HashMap<>();
+
+    public synchronized List<Project> find(ProjectQuery query) {
+        Collection<Project> candidates;
+        if (query.neighbourhood != null) {
+            candidates = byNeighbourhood.get(query.neighbourhood);
+        } else if (query.filtersTwoRoomPrice()) {
+            candidates = inRange(byTwoRoomPrice, query.minTwoRoomPrice, query.maxTwoRoomPrice);
+        } else if (query.filtersThreeRoomPrice()) {
+            candidates = inRange(byThreeRoomPrice, query.minThreeRoomPrice, query.maxThreeRoomPrice);
+        } else {
+            candidates = indexedPrices.keySet();
+        }
+
+        List<Project> matches = new ArrayList<>();
+        for (Project project : candidates) {
+            if (matches(project, query)) matches.add(project);
+        }
+        matches.sort(BY_NAME);
+        return matches;
+    }
+
+    /* Adds a project, or refiles it under its current prices */
+    public synchronized void update(Project project) {
+        double[] prices = indexedPrices.get(project);
+        if (prices == null) {
+            byNeighbourhood.add(project.getNeighbourhood(), project);
+        } else {
+            if (prices[0] == project.getTwoRoomPrice() && prices[1] == project.getThreeRoomPrice()) return;
+            unfile(byTwoRoomPrice, prices[0], project);
+            unfile(byThreeRoomPrice, prices[1], project);
+        }
+
+        byTwoRoomPrice.computeIfAbsent(project.getTwoRoomPrice(), price -> new HashSet<>()).add(project);
+        byThreeRoomPrice.computeIfAbsent(project.getThreeRoomPrice(), price -> new HashSet<>()).add(project);
+        indexedPrices.put(project, new double[] {project.getTwoRoomPrice(), project.getThreeRoomPrice()});
+    }
+
+    public synchronized void remove(Project project) {
+        double[] prices = indexedPrices.remove(project);
+        if (prices == null) return;
+
+        byNeighbourhood.remove(project.getNeighbourhood(), project);
+        unfile(byTwoRoomPrice, prices[0], project);
+        unfile(byThreeRoomPrice, prices[1], project);
+    }
+
+    private static List<Project> inRange(NavigableMap<Double, Set<Project>> index, double min, double max) {
+        List<Project> projects = new ArrayList<>();
+        if (min > max) return projects;
+
+        for (Set<Project> atPrice : index.subMap(min, true, max, true).values()) {
+            projects.addAll(atPrice);
+        }
+        return projects;
+    }
+
+    private static void unfile(NavigableMap<Double, Set<Project>> index, double price, Project project) {
+        Set<Project> atPrice = index.get(price);
+        if (atPrice == null) return;
+
+        atPrice.remove(project);
+        if (atPrice.isEmpty()) index.remove(price);
+    }
+
+    private static boolean matches(Project project, ProjectQuery query) {
+        if (query.neighbourhood != null && !NameIndex.fold(project.getNeighbourhood()).equals(NameIndex.fold(query.neighbourhood))) return false;
+
+        if (project.getTwoRoomPrice() < query.minTwoRoomPrice || project.getTwoRoomPrice() > query.maxTwoRoomPrice) return false;
+        if (project.getThreeRoomPrice() < query.minThreeRoomPrice || project.getThreeRoomPrice() > query.maxThreeRoomPrice) return false;
+
+        if (project.getTwoRoomUnits() < query.minTwoRoomUnits) return false;
+        if (project.getThreeRoomUnits() < query.minThreeRoomUnits) return false;
+
+        if (query.visibleOnly && !project.isVisible()) return false;
+        return !query.openOnly || project.isOpen();
+    }
+}
@@ -0,0 +1,72 @@
+package src.service;
+
+/**
+ * Filters for ProjectService.findProjects, every filter left unset matches everything. Chain the ones you need:
+ *   ProjectQuery.all().inNeighbourhood("Yishun").twoRoomPriceBetween(200000, 400000).minTwoRoomUnits(1)
+ */
+public class ProjectQuery {
+    String neighbourhood = null;
+
+    double minTwoRoomPrice = Double.NEGATIVE_INFINITY;
+    double maxTwoRoomPrice = Double.POSITIVE_INFINITY;
+    double minThreeRoomPrice = Double.NEGATIVE_INFINITY;
+    double maxThreeRoomPrice = Double.POSITIVE_INFINITY;
+
+    int minTwoRoomUnits = 0;
+    int minThreeRoomUnits = 0;
+
+    boolean openOnly = false;
+    boolean visibleOnly = false;
+
+    public static ProjectQuery all() {
+        return new ProjectQuery();
+    }
+
+    // Case-insensitive, like the name lookups
+    public ProjectQuery inNeighbourhood(String neighbourhood) {
+        this.neighbourhood = neighbourhood;
+        return this;
+    }
+
+    // Both bounds inclusive
+    public ProjectQuery twoRoomPriceBetween(double min, double max) {
+        this.minTwoRoomPrice = min;
+        this.maxTwoRoomPrice = max;
+        return this;
+    }
+
+    public ProjectQuery threeRoomPriceBetween(double min, double max) {
+        this.minThreeRoomPrice = min;
+        this.maxThreeRoomPrice = max;
+        return this;
+    }
+
+    public ProjectQuery minTwoRoomUnits(int units) {
+        this.minTwoRoomUnits = units;
+        return this;
+    }
+
+    public ProjectQuery minThreeRoomUnits(int units) {
+        this.minThreeRoomUnits = units;
+        return this;
+    }
+
+    // Application window includes today
+    public ProjectQuery openOnly() {
+        this.openOnly = true;
+        return this;
+    }
+
+    public ProjectQuery visibleOnly() {
+        this.visibleOnly = true;
+        return this;
+    }
+
+    boolean filtersTwoRoomPrice() {
+        return minTwoRoomPrice != Double.NEGATIVE_INFINITY || maxTwoRoomPrice != Double.POSITIVE_INFINITY;
+    }
+
+    boolean filtersThreeRoomPrice() {
+        return minThreeRoomPrice != Double.NEGATIVE_INFINITY || maxThreeRoomPrice != Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,131 @@
+package src.service;
+
+import src.model.Project;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Every project's application window as transitions on a calendar (epoch day -> projects opening / closing that day),
+ * so a new day only touches the projects whose window starts or ends in between, and "opening in the next N days"
+ * is one range of the calendar.
+ */
+public class ProjectSchedule {
+    /*
+    - opening : epoch day of the open date       -> projects whose window starts that day
+    - closing : epoch day AFTER the close date   -> projects whose window is over from that day on
+    A project is open on day D if openDay <= D < closingDay, the result is cached in Project.isOpen().
+
+    advanceTo(day) recomputes the open flag of the projects with a transition between the old and the new day ONLY,
+    in either direction (a clock set back just replays the same range). Nothing else is looked at.
+
+    The day only changes when someone asks: isDue() compares the clock with the start of the next day (one long
+    comparison), ProjectService calls it on its read paths and advances when it is true.
+     */
+    private final NavigableMap<Long, Set<Project>> opening = new TreeMap<>();
+    private final NavigableMap<Long, Set<Project>> closing = new TreeMap<>();
+
+    // Every filed project -> the {opening, closing} days it is filed under
+    private final Map<Project, long[]> filedDays = new HashMap<>();
+
+    private long currentDay;
+    private long dayStartMillis;     // [dayStartMillis, nextDayStartMillis) is the current day on the clock
+    private long nextDayStartMillis;
+
+    public ProjectSchedule(long currentDay) {
+        setDay(currentDay);
+    }
+
+    public synchronized long currentDay() {
+        return currentDay;
+    }
+
+    /* True once the clock has left the current day (usually: passed midnight) since the schedule was last advanced */
+    public synchronized boolean isDue() {
+        long now = System.currentTimeMillis();
+        return now >= nextDayStartMillis || now < dayStartMillis;
+    }
+
+    /*
+      Files a project under its current dates (or refiles it) and sets its open flag for the current day.
+      True if it was filed before under different dates.
+     */
+    public synchronized boolean file(Project project) {
+        long openDay = project.getOpenDate().toEpochDay();
+        long closingDay = project.getCloseDate().toEpochDay() + 1;
+
+        long[] days = filedDays.get(project);
+        boolean moved = days != null && (days[0] != openDay || days[1] != closingDay);
+        if (days == null || moved) {
+            remove(project);
+            opening.computeIfAbsent(openDay, day -> new LinkedHashSet<>()).add(project);
+            closing.computeIfAbsent(closingDay, day -> new LinkedHashSet<>()).add(project);
+            filedDays.put(project, new long[] {openDay, closingDay});
+        }
+
+        project.setOpen(isOpenOn(openDay, closingDay, currentDay));
+        return moved;
+    }
+
+    public synchronized void remove(Project project) {
+        long[] days = filedDays.remove(project);
+        if (days == null) return;
+
+        unfile(opening, days[0], project);
+        unfile(closing, days[1], project);
+    }
+
+    /* Moves the schedule to a new day, returns the projects whose open flag flipped (in day order) */
+    public synchronized List<Project> advanceTo(long day) {
+        List<Project> flipped = new ArrayList<>();
+        if (day == currentDay) return flipped;
+
+        long from = Math.min(day, currentDay);
+        long to = Math.max(day, currentDay);
+
+        Set<Project> touched = new LinkedHashSet<>();
+        for (Set<Project> projects : opening.subMap(from, false, to, true).values()) touched.addAll(projects);
+        for (Set<Project> projects : closing.subMap(from, false, to, true).values()) touched.addAll(projects);
+
+        setDay(day);
+        for (Project project : touched) {
+            long[] days = filedDays.get(project);
+            boolean open = isOpenOn(days[0], days[1], day);
+            if (project.isOpen() != open) {
+                project.setOpen(open);
+                flipped.add(project);
+            }
+        }
+        return flipped;
+    }
+
+    /* Projects whose window starts within the next `days` days (not today), by open date */
+    public synchronized List<Project> openingWithin(int days) {
+        List<Project> projects = new ArrayList<>();
+        if (days <= 0) return projects;
+
+        for (Set<Project> openingThatDay : opening.subMap(currentDay, false, currentDay + days, true).values()) {
+            projects.addAll(openingThatDay);
+        }
+        return projects;
+    }
+
+    private void setDay(long day) {
+        currentDay = day;
+        dayStartMillis = LocalDate.ofEpochDay(day).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        nextDayStartMillis = LocalDate.ofEpochDay(day + 1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static boolean isOpenOn(long openDay, long closingDay, long day) {
+        return openDay <= day && day < closingDay;
+    }
+
+    private static void unfile(NavigableMap<Long, Set<Project>> calendar, long day, Project project) {
+        Set<Project> projects = calendar.get(day);
+        if (projects == null) return;
+
+        projects.remove(project);
+        if (projects.isEmpty()) calendar.remove(day);
+    }
+}
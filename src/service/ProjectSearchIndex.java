@@ -0,0 +1,285 @@
+package src.service;
+
+import src.model.Project;
+import src.util.NameIndex;
+
+import java.util.*;
+
+/**
+ * Search over project names and neighbourhoods: a trie for prefix matches and a trigram index for typos.
+ * search("acac", 5) finds "Acacia Breeze", search("acasia", 5) still does.
+ */
+public class ProjectSearchIndex {
+    /*
+    Terms indexed per project (all case-folded, see NameIndex.fold):
+    - the full name                      weight 0 (best)
+    - every word of the name             weight 1
+    - the neighbourhood and its words    weight 2
+
+    Ranking of search(query, limit):
+    1. Prefix matches from the trie: by weight, then by the length of the matched term (an exact match is the shortest
+       possible), then by name. Every trie node keeps the MAX_RESULTS best hits of its whole subtree per weight, so a
+       prefix query is one walk down the trie plus reading at most 3 short lists, however many projects share the prefix.
+    2. Only if that is still short of the limit: fuzzy matches, by trigram similarity (Jaccard of the trigram sets of the
+       query and the CLOSEST of the project's terms above, so one mistyped word still matches a multi-word name), then
+       name. Below MIN_SIMILARITY nothing is returned. Every indexed term gets a small int id, postings are BitSets and
+       the shared trigrams are counted in an int[], so scoring stays cheap even when a trigram is shared by thousands
+       of terms.
+
+    Adding a project walks each of its terms down the trie once. Removing one (renames) rebuilds the subtree lists
+    bottom-up along its terms' paths only.
+     */
+    public static final int MAX_RESULTS = 20;
+    private static final double MIN_SIMILARITY = 0.3;
+    private static final int WEIGHTS = 3;
+
+    private static final Comparator<Hit> HIT_ORDER = Comparator.<Hit>comparingInt(hit -> hit.length)
+            .thenComparing(hit -> hit.project.getName());
+
+    // One indexed term of a project
+    private static class Hit {
+        final Project project;
+        final int weight;
+        final int length;
+
+        Hit(Project project, int weight, int length) {
+            this.project = project;
+            this.weight = weight;
+            this.length = length;
+        }
+    }
+
+    private static class Node {
+        final Map<Character, Node> children = new HashMap<>();
+        final List<Hit> terminals = new ArrayList<>(1); // Terms ending exactly here
+        final List<List<Hit>> best = new ArrayList<>(Collections.nCopies(WEIGHTS, null)); // Best MAX_RESULTS hits of the subtree per weight, in HIT_ORDER (null = none)
+    }
+
+    private final Node root = new Node();
+
+    // Trigram postings by term id, every term of every project (see termsOf) has its own id
+    private final Map<String, BitSet> termGrams = new HashMap<>();
+    private final List<Project> termOwners = new ArrayList<>();  // By term id, null = free
+    private final List<Integer> termSizes = new ArrayList<>();   // By term id: number of trigrams of the term
+    private final Deque<Integer> freeTermIds = new ArrayDeque<>();
+    private final Map<Project, List<Integer>> termIds = new HashMap<>();  // In the order of the project's indexedTerms
+
+    // Every indexed project -> the terms it was indexed under (term -> weight), so it can be removed after a rename
+    private final Map<Project, Map<String, Integer>> indexedTerms = new HashMap<>();
+
+    public synchronized List<Project> search(String query, int limit) {
+        String folded = NameIndex.fold(query);
+        limit = Math.min(limit, MAX_RESULTS);
+        if (folded.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        LinkedHashSet<Project> results = new LinkedHashSet<>();
+        prefixMatches(folded, limit, results);
+        if (results.size() < limit) fuzzyMatches(folded, limit, results);
+
+        return new ArrayList<>(results);
+    }
+
+    /* Indexes a new project, or re-indexes one whose name changed */
+    public synchronized void reindex(Project project) {
+        remove(project);
+
+        Map<String, Integer> terms = termsOf(project);
+        List<Integer> ids = new ArrayList<>(terms.size());
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            insert(term.getKey(), new Hit(project, term.getValue(), term.getKey().length()));
+
+            Set<String> grams = trigrams(term.getKey());
+            int id = newTermId(project, grams.size());
+            for (String gram : grams) termGrams.computeIfAbsent(gram, g -> new BitSet()).set(id);
+            ids.add(id);
+        }
+        indexedTerms.put(project, terms);
+        termIds.put(project, ids);
+    }
+
+    public synchronized void remove(Project project) {
+        Map<String, Integer> terms = indexedTerms.remove(project);
+        if (terms == null) return;
+
+        for (String term : terms.keySet()) {
+            removeTerm(term, project);
+        }
+
+        Iterator<Integer> ids = termIds.remove(project).iterator();
+        for (String term : terms.keySet()) {
+            int id = ids.next();
+            for (String gram : trigrams(term)) {
+                BitSet postings = termGrams.get(gram);
+                postings.clear(id);
+                if (postings.isEmpty()) termGrams.remove(gram);
+            }
+            termOwners.set(id, null);
+            freeTermIds.push(id);
+        }
+    }
+
+    private int newTermId(Project project, int gramCount) {
+        if (freeTermIds.isEmpty()) {
+            termOwners.add(project);
+            termSizes.add(gramCount);
+            return termOwners.size() - 1;
+        }
+
+        int id = freeTermIds.pop();
+        termOwners.set(id, project);
+        termSizes.set(id, gramCount);
+        return id;
+    }
+
+    private void prefixMatches(String folded, int limit, LinkedHashSet<Project> results) {
+        Node node = root;
+        for (int i = 0; i < folded.length() && node != null; i++) {
+            node = node.children.get(folded.charAt(i));
+        }
+        if (node == null) return;
+
+        for (int weight = 0; weight < WEIGHTS && results.size() < limit; weight++) {
+            if (node.best.get(weight) == null) continue;
+            for (Hit hit : node.best.get(weight)) {
+                if (results.size() >= limit) break;
+                results.add(hit.project);
+            }
+        }
+    }
+
+    private void fuzzyMatches(String folded, int limit, LinkedHashSet<Project> results) {
+        Set<String> queryGrams = trigrams(folded);
+        int[] shared = new int[termOwners.size()];
+        BitSet touched = new BitSet();
+
+        for (String gram : queryGrams) {
+            count(termGrams.get(gram), shared, touched);
+        }
+
+        // A project scores as its closest term
+        Map<Project, Double> similarity = new HashMap<>();
+        for (int id = touched.nextSetBit(0); id >= 0; id = touched.nextSetBit(id + 1)) {
+            double termSimilarity = jaccard(shared[id], queryGrams.size(), termSizes.get(id));
+            if (termSimilarity >= MIN_SIMILARITY) similarity.merge(termOwners.get(id), termSimilarity, Math::max);
+        }
+
+        // Keeps only the best `limit` candidates: the head of the queue is the worst one kept
+        Comparator<Project> byRank = Comparator.<Project>comparingDouble(similarity::get)
+                .thenComparing(Project::getName, Comparator.reverseOrder());
+        PriorityQueue<Project> kept = new PriorityQueue<>(limit + 1, byRank);
+
+        for (Project project : similarity.keySet()) {
+            if (results.contains(project)) continue;
+
+            kept.add(project);
+            if (kept.size() > limit) kept.poll();
+        }
+
+        List<Project> ranked = new ArrayList<>(kept);
+        ranked.sort(byRank.reversed());
+        for (Project project : ranked) {
+            if (results.size() >= limit) break;
+            results.add(project);
+        }
+    }
+
+    private void insert(String term, Hit hit) {
+        Node node = root;
+        offer(node, hit);
+        for (int i = 0; i < term.length(); i++) {
+            node = node.children.computeIfAbsent(term.charAt(i), c -> new Node());
+            offer(node, hit);
+        }
+        node.terminals.add(hit);
+    }
+
+    // Adds a hit to a node's bounded best list if it ranks high enough
+    private static void offer(Node node, Hit hit) {
+        List<Hit> best = node.best.get(hit.weight);
+        if (best == null) {
+            best = new ArrayList<>(1);
+            node.best.set(hit.weight, best);
+        }
+
+        int position = Collections.binarySearch(best, hit, HIT_ORDER);
+        if (position < 0) position = -position - 1;
+        if (position >= MAX_RESULTS) return;
+
+        best.add(position, hit);
+        if (best.size() > MAX_RESULTS) best.remove(best.size() - 1);
+    }
+
+    private void removeTerm(String term, Project project) {
+        List<Node> path = new ArrayList<>(term.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < term.length() && node != null; i++) {
+            node = node.children.get(term.charAt(i));
+            if (node != null) path.add(node);
+        }
+        if (node == null) return;
+
+        node.terminals.removeIf(hit -> hit.project == project);
+
+        // Deepest first, so every node is rebuilt from children that are already up to date
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            Node current = path.get(depth);
+            boolean listed = false;
+            for (List<Hit> best : current.best) {
+                if (best != null && best.removeIf(hit -> hit.project == project)) listed = true;
+            }
+            if (listed) rebuild(current);
+        }
+    }
+
+    // Recomputes a node's best lists from its own terms and its children's best lists
+    private static void rebuild(Node node) {
+        Collections.fill(node.best, null);
+        for (Hit hit : node.terminals) offer(node, hit);
+        for (Node child : node.children.values()) {
+            for (List<Hit> best : child.best) {
+                if (best == null) continue;
+                for (Hit hit : best) offer(node, hit);
+            }
+        }
+    }
+
+    private static void count(BitSet postings, int[] shared, BitSet touched) {
+        if (postings == null) return;
+        for (int id = postings.nextSetBit(0); id >= 0; id = postings.nextSetBit(id + 1)) {
+            shared[id]++;
+            touched.set(id);
+        }
+    }
+
+    private static double jaccard(int shared, int querySize, int termSize) {
+        return shared == 0 ? 0 : (double) shared / (querySize + termSize - shared);
+    }
+
+    private static Map<String, Integer> termsOf(Project project) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, project.getName(), 0, 1);
+        addTerms(terms, project.getNeighbourhood(), 2, 2);
+        return terms;
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String text, int wholeWeight, int wordWeight) {
+        String folded = NameIndex.fold(text);
+        if (folded.isEmpty()) return;
+
+        terms.merge(folded, wholeWeight, Math::min);
+        for (String word : folded.split("\\s+")) {
+            if (!word.isEmpty()) terms.merge(word, wordWeight, Math::min);
+        }
+    }
+
+    // Padded with a space on both sides, so the first and last letters count as much as the middle ones
+    private static Set<String> trigrams(String term) {
+        String padded = " " + term + " ";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+}
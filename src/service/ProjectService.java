@@ -3,22 +3,119 @@ package src.service;
 import src.model.Manager;
 import src.model.Officer;
 import src.model.Project;
+import src.repository.ProjectFormat;
+import src.repository.ProjectMembershipStore;
+import src.repository.Repositories;
+import src.repository.Repository;
+import src.util.AtomicFileWriter;
+import src.util.BinarySnapshot;
 import src.util.CSVReader;
+import src.util.CSVTable;
 import src.util.CSVWriter;
+import src.util.FilePath;
+import src.util.StripedLocks;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 
-public class ProjectService {
-    private final Map<String, Project> projects = new HashMap<>();
+public final class ProjectService {
+    /*
+    Shared by every session, so:
+    - projects is a ConcurrentHashMap and only ever handed out as a read-only view, new / renamed projects go through
+      createProject / renameProject (synchronized, like everything touching the manager / officer indexes below)
+    - A change that reads and then writes several objects (apply, withdraw, approve, book, officer registration, edits)
+      holds projectLock(project) and then userLock(nric), ALWAYS in that order so two of them can never deadlock.
+      Never hold one while waiting for console input: read the input first, lock, then check again.
+    - This service's monitor and the schedule's come AFTER those locks (officerRegistrationChanged and
+      ProjectSchedule.file are called under a projectLock), so nothing holding either of them may take a projectLock
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    private final Map<String, Project> projects = new ConcurrentHashMap<>();
+    private final StripedLocks projectLocks = new StripedLocks(LOCK_STRIPES);
+    private final StripedLocks userLocks = new StripedLocks(LOCK_STRIPES);
+
+    private final EligibilityIndex eligibility = new EligibilityIndex();
+    private final ProjectCatalog catalog = new ProjectCatalog();
+    private final ProjectSearchIndex searchIndex = new ProjectSearchIndex();
+    private final FlatInventory flatInventory = new FlatInventory(this::projectChanged, this::projectLock);
+    private final BallotEngine ballotEngine = new BallotEngine(this);
     private final UserService userService;
+    private final ApplicationStatusIndex applicationStatuses;
+    private final ProjectSchedule schedule;
+
+    // Set when ProjectList.csv had no Visibility column yet, every project's visibility is then set from its dates
+    private boolean visibilityColumnAdded = false;
+
+    /*
+    Indexes for the manager menus, kept in step by createProject / renameProject / officerRegistrationChanged:
+    - projectsByManager  : manager NRIC (upper-cased) -> that manager's projects, in creation/load order
+    - pendingOfficers    : project -> officers whose registration for it is PENDING
+    - pendingProjectOf   : officer NRIC -> the project its pending registration is in (to take it out again)
+    Projects are keyed by identity, so a rename does not touch the officer index.
+     */
+    private final Map<String, Set<Project>> projectsByManager = new HashMap<>();
+    private final Map<Project, Set<Officer>> pendingOfficers = new HashMap<>();
+    private final Map<String, Project> pendingProjectOf = new HashMap<>();
+
+    // Bump whenever the snapshot record layout below changes, old snapshots are then ignored
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final ProjectFormat ROW_FORMAT = new ProjectFormat();
+
+    // Manager/officer names are resolved against the user lists, so those are part of the snapshot's sources too
+    private static final List<String> SNAPSHOT_SOURCES = List.of(
+            FilePath.PROJECT_LIST_FILE, FilePath.APPLICANT_LIST_FILE, FilePath.OFFICER_LIST_FILE, FilePath.MANAGER_LIST_FILE
+    );
 
     public ProjectService(UserService userService) {
         this.userService = userService;
+        this.applicationStatuses = new ApplicationStatusIndex(userService);
+
+        load();
+
+        // Resumes from the day the schedule was last advanced to, so only windows that started or ended since then flip
+        LocalDate scheduledDay = loadScheduledDay();
+        schedule = new ProjectSchedule(scheduledDay == null ? LocalDate.now().toEpochDay() : scheduledDay.toEpochDay());
+
+        for (Project project : projects.values()) {
+            indexManager(project);
+            projectChanged(project); // Files it in the schedule first, the other indexes read its open flag
+            searchIndex.reindex(project);
+        }
+        if (scheduledDay == null || visibilityColumnAdded) {
+            for (Project project : projects.values()) {
+                if (project.isVisible() != project.isOpen()) showWhileOpen(project);
+            }
+            saveScheduledDay();
+        }
+        advanceSchedule();
+
+        for (Officer officer : userService.getAllOfficers().values()) {
+            officerRegistrationChanged(officer);
+        }
+    }
+
+    private void load() {
+        if (Repositories.usesBTree()) {
+            // First B-tree boot: fix ProjectList.csv up like a CSV boot does, the store is then imported from it
+            if (!new File(FilePath.PROJECT_STORE_FILE).exists()) loadProjects();
+            projects.clear();
+            loadFromStore();
+            return;
+        }
+        if (BinarySnapshot.isEnabled() && loadSnapshot()) return;
+
         loadProjects();
+
+        if (BinarySnapshot.isEnabled()) saveSnapshot(); // After loadProjects, which rewrites ProjectList.csv
     }
 
     private void loadProjects() {
@@ -31,37 +128,22 @@ public class ProjectService {
 
         List<String> newHeaders = List.of("ManagerNRIC", "OfficerNRICs", "ApplicantNRICs", "Visibility");
 
-        List<Map<String, String>> rows = CSVReader.readCSV("data/ProjectList.csv", baseHeaders);
-        LocalDate today = LocalDate.now();
+        CSVTable table = CSVReader.readTable(FilePath.PROJECT_LIST_FILE, baseHeaders);
+        ProjectMembershipStore memberships = Repositories.memberships();
         boolean updated = false;
 
-        List<Map<String, String>> rowsToRemove = new ArrayList<>();
-
-        for (Map<String, String> row : rows) {
-            // === 1. Ensure new columns exist ===
-            for (String header : newHeaders) {
-                if (!row.containsKey(header)) {
-                    row.put(header, header.equals("Visibility") ? "false" : "");
-                    updated = true;
-                }
-            }
+        // === 1. Ensure new columns exist (Visibility is kept as saved, ProjectSchedule flips it when a window starts or ends) ===
+        if (table.addColumns(newHeaders)) {
+            visibilityColumnAdded = true;
+            updated = true;
+        }
 
-            // === 2. Visibility check based on date range ===
-            try {
-                DateTimeFormatter legacyDateFormat = DateTimeFormatter.ofPattern("M/d/yyyy");
-                LocalDate openDate = LocalDate.parse(row.get("Application opening date"), legacyDateFormat);
-                LocalDate closeDate = LocalDate.parse(row.get("Application closing date"), legacyDateFormat);
+        List<Integer> rowsToRemove = new ArrayList<>();
 
-                boolean visible = (today.isEqual(openDate) || today.isAfter(openDate)) &&
-                        (today.isBefore(closeDate) || today.isEqual(closeDate));
-                row.put("Visibility", String.valueOf(visible));
-                updated = true;
-            } catch (Exception e) {
-                System.err.println("⚠️ Could not parse open/close date for: " + row.get("Project Name"));
-            }
+        for (int row = 0; row < table.size(); row++) {
 
-            // === 3. Set Manager NRIC ===
-            String managerName = row.get("Manager").trim();
+            // === 2. Set Manager NRIC ===
+            String managerName = table.get(row, "Manager").trim();
             Manager manager = userService.getManagerByName(managerName);
             if (manager == null) {
                 System.err.println("❌ Manager not found: " + managerName + " — Project will be removed.");
@@ -69,11 +151,11 @@ public class ProjectService {
                 continue;
             }
 
-            row.put("ManagerNRIC", manager.getNric());
+            table.set(row, "ManagerNRIC", manager.getNric());
             updated = true;
 
-            // === 4. Set Officer NRICs ===
-            String rawOfficerNames = row.get("Officer").trim();
+            // === 3. Set Officer NRICs ===
+            String rawOfficerNames = table.get(row, "Officer").trim();
             List<String> officerNames = Arrays.stream(rawOfficerNames.split(","))
                     .map(String::trim)
                     .collect(Collectors.toList());
@@ -92,92 +174,405 @@ public class ProjectService {
             }
 
             // Clean up and save filtered names back
-            row.put("Officer", String.join(",", validOfficerNames));
-            row.put("OfficerNRICs", String.join(",", matchedOfficerNrics));
+            table.set(row, "Officer", String.join(",", validOfficerNames));
+            table.set(row, "OfficerNRICs", String.join(",", matchedOfficerNrics));
             updated = true;
 
-            String rawApplicantNrics = row.getOrDefault("ApplicantNRICs", "").trim();
-            List<String> applicantNrics = rawApplicantNrics.isEmpty() ? new ArrayList<>() :
-                    Arrays.stream(rawApplicantNrics.split(",")).map(String::trim).collect(Collectors.toList());
+            // === 4. Move the applicants of an old ApplicantNRICs cell into the project's membership segment (once) ===
+            String projectName = table.get(row, "Project Name");
+            String rawApplicantNrics = table.get(row, "ApplicantNRICs").trim();
 
-            List<String> validApplicantNrics = new ArrayList<>();
+            if (!memberships.hasSegment(projectName)) {
+                List<String> applicantNrics = rawApplicantNrics.isEmpty() ? new ArrayList<>() :
+                        Arrays.stream(rawApplicantNrics.split(",")).map(String::trim).collect(Collectors.toList());
 
-            for (String nric : applicantNrics) {
-                if (userService.getApplicantByNric(nric) != null) {
-                    validApplicantNrics.add(nric);
-                } else {
-                    System.err.println("⚠️ Applicant NRIC not found: " + nric + " — Removing from project.");
+                List<String> validApplicantNrics = new ArrayList<>();
+
+                for (String nric : applicantNrics) {
+                    if (userService.hasApplicant(nric)) {
+                        validApplicantNrics.add(nric);
+                    } else {
+                        System.err.println("⚠️ Applicant NRIC not found: " + nric + " — Removing from project.");
+                    }
                 }
+
+                memberships.seed(projectName, validApplicantNrics);
             }
 
-            row.put("ApplicantNRICs", String.join(",", validApplicantNrics));
-            updated = true;
+            // The cell is only blanked once the segment exists, a failed move is retried on the next boot
+            if (!rawApplicantNrics.isEmpty() && memberships.hasSegment(projectName)) {
+                table.set(row, "ApplicantNRICs", "");
+                updated = true;
+            }
 
             /* LOAD PROJECTS INTO THE HASHMAP */
-            // === 5. Construct Project object ===
-            try {
-                String projectName = row.get("Project Name");
-                String neighbourhood = row.get("Neighborhood");
+            // === 5. Construct Project object (same row -> Project mapping as the CSV repository) ===
+            Project project = ROW_FORMAT.fromRow(table.schema().columns(), table.rows().get(row));
+            if (project != null) projects.put(project.getName(), project);
+        }
+
+        for (int i = rowsToRemove.size() - 1; i >= 0; i--) {
+            table.remove(rowsToRemove.get(i)); // Back to front so the remaining indexes stay valid
+        }
+
+        if (updated) {
+            System.out.println("✅ ProjectList.csv updated with visibility and NRICs.");
+            CSVWriter.updateProjectHeaders(table, FilePath.PROJECT_LIST_FILE);
+        }
+    }
 
-                int twoRoomUnits = Integer.parseInt(row.get("Number of units for Type 1"));
-                double twoRoomPrice = Double.parseDouble(row.get("Selling price for Type 1"));
-                int threeRoomUnits = Integer.parseInt(row.get("Number of units for Type 2"));
-                double threeRoomPrice = Double.parseDouble(row.get("Selling price for Type 2"));
+    /*
+      B-tree mode: the store already holds the resolved NRICs (imported from the fixed up CSV) and the visibility.
+      A store written before the membership segments existed still carries applicant lists, those are moved out once.
+     */
+    private void loadFromStore() {
+        Repository<String, Project> projectRepository = Repositories.projects();
+        ProjectMembershipStore memberships = Repositories.memberships();
+
+        for (Project project : projectRepository.findAll()) {
+            if (!project.getLegacyApplicantNRICs().isEmpty() && memberships.seed(project.getName(), project.getLegacyApplicantNRICs())) {
+                project.clearLegacyApplicantNRICs();
+                projectRepository.save(project); // Saved without the list
+            }
+            projects.put(project.getName(), project);
+        }
+    }
 
-                DateTimeFormatter legacyFormat = DateTimeFormatter.ofPattern("M/d/yyyy");
-                LocalDate openDate = LocalDate.parse(row.get("Application opening date"), legacyFormat);
-                LocalDate closeDate = LocalDate.parse(row.get("Application closing date"), legacyFormat);
+    /*
+      Restores all projects from the binary snapshot, false if there is no usable snapshot.
+      Visibility is restored as saved, the schedule flips it afterwards if a window started or ended since.
+     */
+    private boolean loadSnapshot() {
+        BinarySnapshot.Reader in = BinarySnapshot.Reader.open(FilePath.PROJECT_SNAPSHOT_FILE, SNAPSHOT_VERSION, SNAPSHOT_SOURCES);
+        if (in == null) return false;
+
+        try {
+            int projectCount = in.readInt();
+            for (int i = 0; i < projectCount; i++) {
+                String name = in.readString();
+                String neighbourhood = in.readString();
+                int twoRoomUnits = in.readInt();
+                double twoRoomPrice = in.readDouble();
+                int threeRoomUnits = in.readInt();
+                double threeRoomPrice = in.readDouble();
+                LocalDate openDate = LocalDate.ofEpochDay(in.readLong());
+                LocalDate closeDate = LocalDate.ofEpochDay(in.readLong());
+                String managerName = in.readString();
+                int officerSlot = in.readInt();
+                List<String> officerNames = in.readStrings();
+                String managerNRIC = in.readString();
+                List<String> officerNRICs = in.readStrings();
+                boolean visible = in.readBoolean();
+
+                projects.put(name, new Project(
+                        name, neighbourhood,
+                        twoRoomUnits, twoRoomPrice,
+                        threeRoomUnits, threeRoomPrice,
+                        openDate, closeDate,
+                        managerName, officerSlot, officerNames,
+                        managerNRIC, officerNRICs, new ArrayList<>(), visible
+                ));
+            }
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Corrupt project snapshot, reloading from CSV.");
+            projects.clear();
+            return false;
+        }
+    }
 
-                managerName = row.get("Manager");
-                String managerNRIC = row.get("ManagerNRIC");
-                int officerSlot = Integer.parseInt(row.get("Officer Slot"));
+    private void saveSnapshot() {
+        BinarySnapshot.Writer out = new BinarySnapshot.Writer(FilePath.PROJECT_SNAPSHOT_FILE, SNAPSHOT_VERSION, SNAPSHOT_SOURCES);
+
+        try {
+            out.writeInt(projects.size());
+            for (Project p : projects.values()) {
+                out.writeString(p.getName());
+                out.writeString(p.getNeighbourhood());
+                out.writeInt(p.getTwoRoomUnits());
+                out.writeDouble(p.getTwoRoomPrice());
+                out.writeInt(p.getThreeRoomUnits());
+                out.writeDouble(p.getThreeRoomPrice());
+                out.writeLong(p.getOpenDate().toEpochDay());
+                out.writeLong(p.getCloseDate().toEpochDay());
+                out.writeString(p.getManagerName());
+                out.writeInt(p.getOfficerSlot());
+                out.writeStrings(p.getOfficerNames());
+                out.writeString(p.getManagerNRIC());
+                out.writeStrings(p.getOfficerNRICs());
+                out.writeBoolean(p.isVisible());
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to build project snapshot.");
+            return;
+        }
 
-                officerNames = Arrays.stream(row.get("Officer").split(","))
-                        .map(String::trim)
-                        .collect(Collectors.toCollection(ArrayList::new));
+        out.commit();
+    }
 
-                List<String> officerNRICs = Arrays.stream(row.get("OfficerNRICs").split(","))
-                        .map(String::trim)
-                        .filter(s -> !s.isBlank())
-                        .collect(Collectors.toCollection(ArrayList::new));
+    public Project getProjectByName(String name) {
+        advanceSchedule();
+        return name == null ? null : projects.get(name); // ConcurrentHashMap does not take null keys
+    }
 
-                List<String> applicantNRICs = Arrays.stream(row.get("ApplicantNRICs").split(","))
-                        .map(String::trim)
-                        .filter(s -> !s.isBlank())
-                        .collect(Collectors.toCollection(ArrayList::new));
+    /* Read-only view, add / rename projects through createProject / renameProject */
+    public Map<String, Project> getAllProjects() {
+        advanceSchedule();
+        return Collections.unmodifiableMap(projects);
+    }
 
+    /* Lock for compound changes to one project, keyed by the object so it survives a rename. Take it BEFORE userLock */
+    public ReentrantLock projectLock(Project project) {
+        return projectLocks.lockFor(project);
+    }
 
-                boolean visible = Boolean.parseBoolean(row.get("Visibility"));
+    /* Lock for compound changes to one applicant / officer */
+    public ReentrantLock userLock(String nric) {
+        return userLocks.lockFor(nric == null ? "" : nric.toUpperCase(Locale.ROOT));
+    }
 
-                Project project = new Project(
-                        projectName, neighbourhood,
-                        twoRoomUnits, twoRoomPrice,
-                        threeRoomUnits, threeRoomPrice,
-                        openDate, closeDate,
-                        managerName, officerSlot, officerNames,
-                        managerNRIC, officerNRICs, applicantNRICs, visible
-                );
+    public EligibilityIndex getEligibilityIndex() {
+        advanceSchedule();
+        return eligibility;
+    }
 
-                projects.put(projectName, project);
-            } catch (Exception e) {
-                System.err.println("❌ Failed to parse project: " + row);
-                e.printStackTrace();
+    public ApplicationStatusIndex getApplicationStatusIndex() {
+        return applicationStatuses;
+    }
+
+    public FlatInventory getFlatInventory() {
+        return flatInventory;
+    }
+
+    public BallotEngine getBallotEngine() {
+        return ballotEngine;
+    }
+
+    /* ===== Applicants of a project: kept in the membership store (one segment per project), not in the Project ===== */
+
+    // Both append ONE record to the project's membership segment, the project row itself is not touched
+    public boolean addApplicant(Project project, String applicantNric) {
+        return Repositories.memberships().add(project.getName(), applicantNric);
+    }
+
+    public boolean removeApplicant(Project project, String applicantNric) {
+        return Repositories.memberships().remove(project.getName(), applicantNric);
+    }
+
+    // All of them in ONE append (e.g. everyone a ballot rejected)
+    public boolean removeApplicants(Project project, Collection<String> applicantNrics) {
+        return Repositories.memberships().removeAll(project.getName(), applicantNrics);
+    }
+
+    public boolean hasApplicant(Project project, String applicantNric) {
+        return Repositories.memberships().contains(project.getName(), applicantNric);
+    }
+
+    public int getApplicantCount(Project project) {
+        return Repositories.memberships().count(project.getName());
+    }
+
+    // A read-only copy in the order the applicants applied, the segment is read the first time it is asked for
+    public Set<String> getApplicantNRICs(Project project) {
+        return Repositories.memberships().members(project.getName());
+    }
+
+    /* Call after changing a project's units, prices, dates or visibility (or adding it), keeps the indexes in step */
+    public void projectChanged(Project project) {
+        // New dates: shown / hidden by the new window right away, like a new project (the caller saves it)
+        if (schedule.file(project)) project.setVisibility(project.isOpen());
+
+        eligibility.update(project);
+        catalog.update(project);
+    }
+
+    /* Projects whose application window opens within the next `days` days (not today), by open date */
+    public List<Project> getProjectsOpeningWithin(int days) {
+        advanceSchedule();
+        return schedule.openingWithin(days);
+    }
+
+    /*
+      Moves the schedule to today once the date has changed: projects whose window started since the last day are
+      made visible, those whose window ended hidden, and ONLY those are saved. Every other read sees the cached flags.
+      The flipped projects are saved AFTER the schedule's monitor is released: showWhileOpen takes their projectLock,
+      and projectChanged files a project in the schedule while holding it.
+     */
+    private void advanceSchedule() {
+        if (!schedule.isDue()) return;
+
+        List<Project> flipped;
+        synchronized (schedule) {
+            if (!schedule.isDue()) return; // Another session advanced it while this one waited
+            flipped = schedule.advanceTo(LocalDate.now().toEpochDay());
+        }
+
+        for (Project project : flipped) {
+            showWhileOpen(project);
+        }
+        saveScheduledDay();
+    }
+
+    private void showWhileOpen(Project project) {
+        ReentrantLock lock = projectLock(project);
+        lock.lock();
+        try {
+            project.setVisibility(project.isOpen());
+            projectChanged(project);
+            if (!Repositories.projects().save(project)) {
+                System.err.println("⚠️ Failed to save visibility of project: " + project.getName());
             }
+        } finally {
+            lock.unlock();
         }
+    }
 
-        rows.removeAll(rowsToRemove);
+    private static LocalDate loadScheduledDay() {
+        Path file = Path.of(FilePath.PROJECT_SCHEDULE_FILE);
+        if (!Files.exists(file)) return null;
 
-        if (updated) {
-            System.out.println("✅ ProjectList.csv updated with visibility and NRICs.");
-            CSVWriter.updateProjectHeaders(rows, "data/ProjectList.csv", baseHeaders, newHeaders);
+        try {
+            return LocalDate.parse(Files.readString(file).trim());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Could not read the project schedule day, visibility is recomputed from the dates.");
+            return null;
         }
     }
 
-    public Project getProjectByName(String name) {
-        return projects.get(name);
+    private void saveScheduledDay() {
+        try {
+            Files.createDirectories(Path.of(FilePath.PROJECT_SCHEDULE_FILE).getParent());
+            try (AtomicFileWriter writer = new AtomicFileWriter(FilePath.PROJECT_SCHEDULE_FILE)) {
+                writer.println(LocalDate.ofEpochDay(schedule.currentDay()).toString());
+                writer.commit();
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Failed to save the project schedule day.");
+            e.printStackTrace();
+        }
     }
 
-    public Map<String, Project> getAllProjects() {
-        return projects;
+    /* Ranked prefix / typo-tolerant search over project names and neighbourhoods (see ProjectSearchIndex) */
+    public List<Project> searchProjects(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /* For a project name that was typed wrong: prints the closest project names, if there are any */
+    public void printSuggestions(String typedName) {
+        List<Project> matches = searchProjects(typedName, 3);
+        if (matches.isEmpty()) return;
+
+        List<String> names = new ArrayList<>();
+        for (Project match : matches) {
+            names.add(match.getName());
+        }
+        System.out.println("💡 Did you mean: " + String.join(", ", names) + "?");
+    }
+
+    /* Catalog query (see ProjectQuery), results sorted by project name */
+    public List<Project> findProjects(ProjectQuery query) {
+        advanceSchedule();
+        return catalog.find(query);
+    }
+
+    /* Inserts a NEW project into the store and every index, false if the name is taken or the insert failed */
+    public synchronized boolean createProject(Project project) {
+        if (projects.containsKey(project.getName())) return false;
+
+        // A new project has no applicants, a segment still under its name is left over from a rename
+        Repositories.memberships().deleteSegment(project.getName());
+
+        // Visible while its window is open, from then on the schedule shows / hides it
+        schedule.file(project);
+        project.setVisibility(project.isOpen());
+        if (!Repositories.projects().insert(project)) {
+            schedule.remove(project);
+            return false;
+        }
+
+        projects.put(project.getName(), project);
+        indexManager(project);
+        projectChanged(project);
+        searchIndex.reindex(project);
+        return true;
+    }
+
+    /*
+      Renames a project in the store, its membership segment and the project map, false if the new name is taken.
+      The segment is copied to the new name FIRST and the old one only deleted once the row is renamed, so a failure
+      (or a crash) at any step leaves the project's row with a segment under its name. A leftover segment of the other
+      name is harmless: createProject clears it before the name is used again.
+     */
+    public boolean renameProject(Project project, String newName) {
+        ReentrantLock lock = projectLock(project);
+        lock.lock();
+        try {
+            synchronized (this) { // After the projectLock, see the lock order at the top
+                return renameLocked(project, newName);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean renameLocked(Project project, String newName) {
+        String oldName = project.getName();
+        if (projects.containsKey(newName)) return false;
+
+        ProjectMembershipStore memberships = Repositories.memberships();
+        if (!memberships.copySegment(oldName, newName)) return false;
+
+        project.setName(newName);
+        if (!Repositories.projects().rename(oldName, project)) {
+            project.setName(oldName);
+            memberships.deleteSegment(newName);
+            return false;
+        }
+
+        projects.remove(oldName);
+        projects.put(newName, project);
+        searchIndex.reindex(project);
+
+        memberships.deleteSegment(oldName); // Only a stale file is left behind if this fails
+        return true;
+    }
+
+    /* The projects managed by this manager (empty if none) */
+    public synchronized List<Project> getProjectsByManager(String managerNric) {
+        Set<Project> managed = projectsByManager.get(managerKey(managerNric));
+        return managed == null ? List.of() : new ArrayList<>(managed);
+    }
+
+    /* Officers whose registration for this project is still PENDING */
+    public synchronized List<Officer> getPendingOfficers(Project project) {
+        Set<Officer> pending = pendingOfficers.get(project);
+        return pending == null ? List.of() : new ArrayList<>(pending);
+    }
+
+    /* Call after an officer registers for a project or is approved / rejected, moves it in the pending index */
+    public synchronized void officerRegistrationChanged(Officer officer) {
+        Project previous = pendingProjectOf.remove(officer.getNric());
+        if (previous != null) {
+            Set<Officer> pending = pendingOfficers.get(previous);
+            pending.remove(officer);
+            if (pending.isEmpty()) pendingOfficers.remove(previous);
+        }
+
+        if (officer.getRegistrationStatus() != Officer.RegistrationStatusType.PENDING) return;
+
+        String assignedProject = officer.getAssignedProjectName();
+        Project project = assignedProject == null ? null : projects.get(assignedProject);
+        if (project == null) return;
+
+        pendingOfficers.computeIfAbsent(project, p -> new LinkedHashSet<>()).add(officer);
+        pendingProjectOf.put(officer.getNric(), project);
+    }
+
+    private synchronized void indexManager(Project project) {
+        projectsByManager.computeIfAbsent(managerKey(project.getManagerNRIC()), nric -> new LinkedHashSet<>()).add(project);
+    }
+
+    private static String managerKey(String managerNric) {
+        return managerNric == null ? "" : managerNric.toUpperCase(Locale.ROOT);
     }
 }
@@ -1,156 +1,366 @@
 package src.service;
 
 import src.model.Applicant;
+import src.model.FlatType;
 import src.model.Manager;
+import src.model.MaritalStatus;
 import src.model.Officer;
 import src.model.User;
-import src.util.CSVReader;
+import src.repository.Repositories;
+import src.repository.Repository;
+import src.util.AppConfig;
+import src.util.BinarySnapshot;
 import src.util.FilePath;
+import src.util.NameIndex;
+import src.util.RowOffsetIndex;
 
+import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
-/* Service class for loading and managing users from CSV files */
+/* Service class for loading and managing users from their repositories (CSV files or B-tree store) */
 public class UserService {
-    private final Map<String, Applicant> applicants = new HashMap<>();
-    private final Map<String, Officer> officers = new HashMap<>();
-    private final Map<String, Manager> managers = new HashMap<>();
+    private final Repository<String, Applicant> applicantRepository = Repositories.applicants();
+
+    // Filled once at startup and shared by every session, handed out as read-only views only
+    private final Map<String, Applicant> applicants = new ConcurrentHashMap<>();
+    private final Map<String, Officer> officers = new ConcurrentHashMap<>();
+    private final Map<String, Manager> managers = new ConcurrentHashMap<>();
+
+    // Case-folded name -> users with that name, kept in step with the maps above (applicants by NRIC so lazy mode can use it too)
+    private final NameIndex<String> applicantsByName = new NameIndex<>();
+    private final NameIndex<Officer> officersByName = new NameIndex<>();
+    private final NameIndex<Manager> managersByName = new NameIndex<>();
+    private boolean applicantNamesIndexed = !AppConfig.LAZY_APPLICANTS; // Lazy mode fills applicantsByName on first use
+
+    // Lazy applicant mode only: access-ordered LRU of hydrated applicants + every applicant handed out that is still alive
+    private final boolean lazyApplicants = AppConfig.LAZY_APPLICANTS;
+    private final Map<String, Applicant> applicantCache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, WeakReference<Applicant>> liveApplicants = new HashMap<>();
+
+    // Bump whenever the snapshot record layout below changes, old snapshots are then ignored
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final List<String> SNAPSHOT_SOURCES = List.of(
+            FilePath.APPLICANT_LIST_FILE, FilePath.OFFICER_LIST_FILE, FilePath.MANAGER_LIST_FILE
+    );
 
     public UserService() {
+        // Before the snapshot check: converting a file to the padded layout changes it, which would stale the snapshot
+        if (RowOffsetIndex.isEnabled() && !Repositories.usesBTree()) {
+            for (String filePath : SNAPSHOT_SOURCES) {
+                RowOffsetIndex.load(filePath, "NRIC");
+            }
+        }
+
+        if (lazyApplicants) {
+            // The snapshot always holds every applicant, so it is neither used nor written in lazy mode
+            applicantRepository.ids(); // Builds the CSV's row index (or reads the B-tree's leaves) up front
+            loadOfficers();
+            loadManagers();
+            return;
+        }
+
+        if (BinarySnapshot.isEnabled() && loadSnapshot()) return;
+
         loadApplicants();
         loadOfficers();
         loadManagers();
+
+        if (BinarySnapshot.isEnabled()) saveSnapshot();
     }
 
+    /*
+      The CSV repository loads user lists through ParallelCSVLoader: the file is memory-mapped and parsed in chunks
+      on every core. Rows come back in file order, so a duplicated NRIC still resolves to its LAST row.
+     */
     private void loadApplicants() {
-        List<String> requiredHeaders = List.of("NRIC", "Password", "Name", "Age", "Marital Status","FlatTypeApplied","AppliedProjectName","ApplicationStatus");
-        Map<String, Map<String, String>> data =
-                CSVReader.readCSVByKey("data/ApplicantList.csv", requiredHeaders, "NRIC");
-
-        for (Map.Entry<String, Map<String, String>> entry : data.entrySet()) {
-            Map<String, String> row = entry.getValue();
-            try {
-                Applicant a = new Applicant(
-                        row.get("NRIC"),
-                        row.get("Password"),
-                        row.get("Name"),
-                        Integer.parseInt(row.get("Age")),
-                        row.get("Marital Status"),
-                        row.getOrDefault("FlatTypeApplied", ""),
-                        row.getOrDefault("AppliedProjectName", ""),
-                        row.getOrDefault("ApplicationStatus", "").toUpperCase().trim()
-                );
-                applicants.put(a.getNric(), a);
-            } catch (Exception e) {
-                System.err.println("⚠️ Failed to parse applicant: " + row);
+        for (Applicant a : applicantRepository.findAll()) {
+            putApplicant(a);
+        }
+    }
+
+    /*
+      Lazy applicant mode (-Dhdb.applicants.lazy=true):
+      - Applicant objects are read from the repository on demand (CSV: RowOffsetIndex, NRIC -> byte offset of the row,
+        is resident and changes not in the file yet are applied on top; B-tree: one root-to-leaf lookup)
+      - Hydrated applicants sit in an LRU cache of APPLICANT_CACHE_SIZE, least recently used CLEAN ones are evicted
+        (an applicant with updates still queued in WriteBehindQueue is dirty and stays until it has been flushed)
+      - An evicted applicant that is still referenced elsewhere (e.g. the logged in user) is handed out again instead of
+        hydrating a second copy, so every caller keeps seeing ONE object per NRIC
+     */
+    private Applicant lazyApplicant(String nric) {
+        synchronized (applicantCache) {
+            Applicant cached = applicantCache.get(nric);
+            if (cached != null) return cached;
+
+            WeakReference<Applicant> live = liveApplicants.get(nric);
+            Applicant applicant = live == null ? null : live.get();
+
+            if (applicant == null) {
+                applicant = applicantRepository.findById(nric);
+                if (applicant == null) return null;
+
+                if (liveApplicants.size() > 2 * AppConfig.APPLICANT_CACHE_SIZE) {
+                    liveApplicants.values().removeIf(reference -> reference.get() == null);
+                }
+                liveApplicants.put(nric, new WeakReference<>(applicant));
             }
+
+            applicantCache.put(nric, applicant);
+            evictApplicants();
+            return applicant;
         }
     }
 
-    private void loadOfficers() {
-        List<String> requiredHeaders = List.of("NRIC", "Password", "Name", "Age", "Marital Status", "AssignedProject", "RegistrationStatus");
-        Map<String, Map<String, String>> data =
-                CSVReader.readCSVByKey("data/OfficerList.csv", requiredHeaders, "NRIC");
-
-        for (Map.Entry<String, Map<String, String>> entry : data.entrySet()) {
-            Map<String, String> row = entry.getValue();
-            try {
-                Officer o = new Officer(
-                        row.get("NRIC"),
-                        row.get("Password"),
-                        row.get("Name"),
-                        Integer.parseInt(row.get("Age")),
-                        row.get("Marital Status"),
-                        row.get("AssignedProject"),
-                        row.getOrDefault("RegistrationStatus", "").toUpperCase().trim()
-                );
-                officers.put(o.getNric(), o);
-            } catch (Exception e) {
-                System.err.println("⚠️ Failed to parse officer: " + row);
+    // Must be called while holding applicantCache. Walks from least to most recently used and drops clean entries
+    private void evictApplicants() {
+        Iterator<Map.Entry<String, Applicant>> iterator = applicantCache.entrySet().iterator();
+        while (applicantCache.size() > AppConfig.APPLICANT_CACHE_SIZE && iterator.hasNext()) {
+            String nric = iterator.next().getKey();
+            if (!applicantRepository.hasPendingWrites(nric)) {
+                iterator.remove();
             }
         }
     }
 
+    private void loadOfficers() {
+        for (Officer o : Repositories.officers().findAll()) {
+            putOfficer(o);
+        }
+    }
+
     private void loadManagers() {
-        List<String> requiredHeaders = List.of("NRIC", "Password", "Name", "Age", "Marital Status");
-        Map<String, Map<String, String>> data =
-                CSVReader.readCSVByKey(FilePath.MANAGER_LIST_FILE, requiredHeaders, "NRIC");
-
-        for (Map.Entry<String, Map<String, String>> entry : data.entrySet()) {
-            Map<String, String> row = entry.getValue();
-            try {
-                Manager m = new Manager(
-                        row.get("NRIC"),
-                        row.get("Password"),
-                        row.get("Name"),
-                        Integer.parseInt(row.get("Age")),
-                        row.get("Marital Status")
-                );
-                managers.put(m.getNric(), m);
-            } catch (Exception e) {
-                System.err.println("⚠️ Failed to parse manager: " + row);
+        for (Manager m : Repositories.managers().findAll()) {
+            putManager(m);
+        }
+    }
+
+    // Every change to the user maps goes through these, so a replaced user (duplicate NRIC) also leaves the name index
+    private void putApplicant(Applicant applicant) {
+        Applicant replaced = applicants.put(applicant.getNric(), applicant);
+        if (replaced != null) applicantsByName.remove(replaced.getName(), replaced.getNric());
+        applicantsByName.add(applicant.getName(), applicant.getNric());
+    }
+
+    private void putOfficer(Officer officer) {
+        Officer replaced = officers.put(officer.getNric(), officer);
+        if (replaced != null) officersByName.remove(replaced.getName(), replaced);
+        officersByName.add(officer.getName(), officer);
+    }
+
+    private void putManager(Manager manager) {
+        Manager replaced = managers.put(manager.getNric(), manager);
+        if (replaced != null) managersByName.remove(replaced.getName(), replaced);
+        managersByName.add(manager.getName(), manager);
+    }
+
+    private void clearUsers() {
+        applicants.clear();
+        officers.clear();
+        managers.clear();
+        applicantsByName.clear();
+        officersByName.clear();
+        managersByName.clear();
+    }
+
+    /* Restores all users from the binary snapshot, false if there is no usable snapshot */
+    private boolean loadSnapshot() {
+        BinarySnapshot.Reader in = BinarySnapshot.Reader.open(FilePath.USER_SNAPSHOT_FILE, SNAPSHOT_VERSION, SNAPSHOT_SOURCES);
+        if (in == null) return false;
+
+        try {
+            int applicantCount = in.readInt();
+            for (int i = 0; i < applicantCount; i++) {
+                Applicant a = new Applicant(in.readString(), in.readString(), in.readString(), in.readInt(),
+                        enumAt(MaritalStatus.values(), in.readInt()), enumAt(FlatType.values(), in.readInt()),
+                        in.readString(), enumAt(Applicant.AppStatusType.values(), in.readInt()));
+                putApplicant(a);
+            }
+
+            int officerCount = in.readInt();
+            for (int i = 0; i < officerCount; i++) {
+                Officer o = new Officer(in.readString(), in.readString(), in.readString(), in.readInt(),
+                        enumAt(MaritalStatus.values(), in.readInt()), in.readString(),
+                        enumAt(Officer.RegistrationStatusType.values(), in.readInt()));
+                putOfficer(o);
+            }
+
+            int managerCount = in.readInt();
+            for (int i = 0; i < managerCount; i++) {
+                Manager m = new Manager(in.readString(), in.readString(), in.readString(), in.readInt(),
+                        enumAt(MaritalStatus.values(), in.readInt()));
+                putManager(m);
             }
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Corrupt user snapshot, reloading from CSV.");
+            clearUsers();
+            return false;
         }
     }
 
+    private void saveSnapshot() {
+        BinarySnapshot.Writer out = new BinarySnapshot.Writer(FilePath.USER_SNAPSHOT_FILE, SNAPSHOT_VERSION, SNAPSHOT_SOURCES);
+
+        try {
+            out.writeInt(applicants.size());
+            for (Applicant a : applicants.values()) {
+                out.writeString(a.getNric());
+                out.writeString(a.getPassword());
+                out.writeString(a.getName());
+                out.writeInt(a.getAge());
+                out.writeInt(ordinal(a.getMaritalStatus()));
+                out.writeInt(ordinal(a.getFlatTypeApplied()));
+                out.writeString(a.getAppliedProjectName());
+                out.writeInt(ordinal(a.getApplicationStatus()));
+            }
+
+            out.writeInt(officers.size());
+            for (Officer o : officers.values()) {
+                out.writeString(o.getNric());
+                out.writeString(o.getPassword());
+                out.writeString(o.getName());
+                out.writeInt(o.getAge());
+                out.writeInt(ordinal(o.getMaritalStatus()));
+                out.writeString(o.getAssignedProjectName());
+                out.writeInt(ordinal(o.getRegistrationStatus()));
+            }
+
+            out.writeInt(managers.size());
+            for (Manager m : managers.values()) {
+                out.writeString(m.getNric());
+                out.writeString(m.getPassword());
+                out.writeString(m.getName());
+                out.writeInt(m.getAge());
+                out.writeInt(ordinal(m.getMaritalStatus()));
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to build user snapshot.");
+            return;
+        }
+
+        out.commit();
+    }
+
+    // Enums are stored in the snapshot by ordinal (-1 = null), changing an enum's constants needs a SNAPSHOT_VERSION bump
+    private static int ordinal(Enum<?> value) {
+        return value == null ? -1 : value.ordinal();
+    }
+
+    private static <E extends Enum<E>> E enumAt(E[] values, int ordinal) {
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
     /* Attempts to authenticate a user from any role by NRIC and password */
     public User authenticateUser(String nric, String password) {
+        if (nric == null) return null;
+
         if (officers.containsKey(nric) && officers.get(nric).checkPassword(password)) {
             return officers.get(nric);
         }
         if (managers.containsKey(nric) && managers.get(nric).checkPassword(password)) {
             return managers.get(nric);
         }
-        if (applicants.containsKey(nric) && applicants.get(nric).checkPassword(password)) {
-            return applicants.get(nric);
+        Applicant applicant = getApplicantByNric(nric);
+        if (applicant != null && applicant.checkPassword(password)) {
+            return applicant;
         }
         return null;
     }
 
     /* FOLLOWING METHODS ARE TO GET ALL USERS */
+    // In lazy mode this hydrates EVERY applicant (through the cache), only meant for rare bulk jobs
     public Map<String, Applicant> getAllApplicants() {
-        return applicants;
+        if (!lazyApplicants) return Collections.unmodifiableMap(applicants);
+
+        Map<String, Applicant> all = new LinkedHashMap<>();
+        for (String nric : applicantRepository.ids()) {
+            Applicant applicant = lazyApplicant(nric);
+            if (applicant != null) all.put(nric, applicant);
+        }
+        return Collections.unmodifiableMap(all);
     }
 
     public Map<String, Officer> getAllOfficers() {
-        return officers;
+        return Collections.unmodifiableMap(officers);
     }
 
     public Map<String, Manager> getAllManagers() {
-        return managers;
+        return Collections.unmodifiableMap(managers);
     }
 
     /* FOLLOWING METHODS ARE TO GET USER BY NRIC */
     public Applicant getApplicantByNric(String nric) {
-        return applicants.getOrDefault(nric, null);
+        if (lazyApplicants) return lazyApplicant(nric);
+        return nric == null ? null : applicants.get(nric); // ConcurrentHashMap does not take null keys
+    }
+
+    /* Existence check that never hydrates an applicant */
+    public boolean hasApplicant(String nric) {
+        if (lazyApplicants) return applicantRepository.exists(nric);
+        return nric != null && applicants.containsKey(nric);
     }
 
     public Officer getOfficerByNric(String nric) {
-        return officers.getOrDefault(nric, null);
+        return nric == null ? null : officers.get(nric);
     }
 
     public Manager getManagerByNric(String nric) {
-        return managers.getOrDefault(nric, null);
+        return nric == null ? null : managers.get(nric);
     }
 
     /* FOLLOWING METHODS ARE TO GET USER BY NAME */
-    public Applicant getApplicantByName(String name) {
-        for (Applicant applicant : applicants.values()) {
-            if (applicant.getName().equalsIgnoreCase(name)) return applicant;
+    // Names are not unique: the plural lookups return everyone with the name, the singular ones the first loaded (with a warning)
+    public List<Applicant> getApplicantsByName(String name) {
+        List<Applicant> matches = new ArrayList<>();
+        for (String nric : applicantNricsByName(name)) {
+            Applicant applicant = getApplicantByNric(nric);
+            if (applicant != null) matches.add(applicant);
         }
-        return null;
+        return matches;
+    }
+
+    public List<Officer> getOfficersByName(String name) {
+        return officersByName.get(name);
+    }
+
+    public List<Manager> getManagersByName(String name) {
+        return managersByName.get(name);
+    }
+
+    public Applicant getApplicantByName(String name) {
+        List<String> nrics = applicantNricsByName(name);
+        return nrics.isEmpty() ? null : getApplicantByNric(firstOf(nrics, "applicants", name));
     }
 
     public Manager getManagerByName(String name) {
-        for (Manager manager : managers.values()) {
-            if (manager.getName().equalsIgnoreCase(name)) return manager;
-        }
-        return null;
+        return firstOf(managersByName.get(name), "managers", name);
     }
 
     public Officer getOfficerByName(String name) {
-        for (Officer officer : officers.values()) {
-            if (officer.getName().equalsIgnoreCase(name)) return officer;
+        return firstOf(officersByName.get(name), "officers", name);
+    }
+
+    /*
+      Lazy mode has no applicant map to index on load, so the first name lookup streams the store ONCE and keeps
+      name -> NRIC for every applicant (names never change, so the index stays valid).
+     */
+    private List<String> applicantNricsByName(String name) {
+        synchronized (applicantsByName) {
+            if (!applicantNamesIndexed) {
+                applicantRepository.forEach(applicant -> applicantsByName.add(applicant.getName(), applicant.getNric()));
+                applicantNamesIndexed = true;
+            }
+            return new ArrayList<>(applicantsByName.get(name));
         }
-        return null;
+    }
+
+    private static <V> V firstOf(List<V> matches, String role, String name) {
+        if (matches.isEmpty()) return null;
+        if (matches.size() > 1) {
+            System.err.println("⚠️ " + matches.size() + " " + role + " are named " + name + " — using the first one.");
+        }
+        return matches.get(0);
     }
 }
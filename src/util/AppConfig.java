@@ -0,0 +1,67 @@
+package src.util;
+
+import java.util.Locale;
+
+/**
+ * Runtime switches for the persistence layer.
+ * Values are read ONCE from -D system properties at startup, e.g. java -Dhdb.journal=true src.Main
+ */
+public class AppConfig {
+    // Append each change to a small per-file journal instead of rewriting the whole CSV on every update
+    public static final boolean JOURNAL_ENABLED = Boolean.parseBoolean(System.getProperty("hdb.journal", "false"));
+
+    // How many journal records are allowed to pile up before the CSV is regenerated (checkpointed)
+    public static final int JOURNAL_CHECKPOINT_INTERVAL = Integer.getInteger("hdb.journal.checkpoint", 500);
+
+    // Boot from the binary snapshot in data/snapshot when the CSVs have not changed since it was written
+    public static final boolean SNAPSHOT_ENABLED = Boolean.parseBoolean(System.getProperty("hdb.snapshot", "true"));
+
+    // Queue row updates and write them out in batches on a background thread (group commit)
+    public static final boolean WRITE_BEHIND_ENABLED = Boolean.parseBoolean(System.getProperty("hdb.writebehind", "false"));
+
+    // Flush as soon as this many different rows are dirty...
+    public static final int WRITE_BEHIND_BATCH_SIZE = Integer.getInteger("hdb.writebehind.batch", 200);
+
+    // ...or at the latest after this many milliseconds
+    public static final long WRITE_BEHIND_INTERVAL_MS = Long.getLong("hdb.writebehind.interval", 2000L);
+
+    // How hard every CSV commit is pushed to disk: none | commit | batch (see AtomicFileWriter)
+    public static final AtomicFileWriter.DurabilityMode DURABILITY = durability(System.getProperty("hdb.durability", "none"));
+
+    // Pad user list rows to a fixed width so single-row updates can be patched in place (see RowOffsetIndex)
+    public static final boolean FIXED_WIDTH_ENABLED = Boolean.parseBoolean(System.getProperty("hdb.fixedwidth", "false"));
+
+    // Spare bytes left in every padded row so it can grow without a full rewrite
+    public static final int FIXED_WIDTH_SLACK = Integer.getInteger("hdb.fixedwidth.slack", 16);
+
+    // Keep only the NRIC -> row offset index of ApplicantList.csv resident and load applicants on demand
+    public static final boolean LAZY_APPLICANTS = Boolean.parseBoolean(System.getProperty("hdb.applicants.lazy", "false"));
+
+    // How many hydrated applicants the lazy mode keeps cached (least recently used are evicted first)
+    public static final int APPLICANT_CACHE_SIZE = Integer.getInteger("hdb.applicants.cache", 1000);
+
+    // Migrate CSVs to the current column layout on a background thread instead of before the app starts
+    public static final boolean BACKGROUND_MIGRATION = Boolean.parseBoolean(System.getProperty("hdb.migration.background", "true"));
+
+    // Where records are stored: csv (the CSV files) | btree (page-based B-tree files in data/store, see Repositories)
+    public static final String STORE = System.getProperty("hdb.store", "csv").toLowerCase();
+
+    // Print commit/fsync counts and timings on shutdown
+    public static final boolean PRINT_STATS = Boolean.parseBoolean(System.getProperty("hdb.stats", "false"));
+
+    // Server mode: serve sessions on this address instead of the console, "7000" / "localhost:7000" (TCP) or "unix:/path"
+    public static final String SERVER_ADDRESS = System.getProperty("hdb.server");
+
+    // How long a flat unit stays held for a booking that is not confirmed yet, then it is released again (seconds)
+    public static final int BOOKING_HOLD_SECONDS = Integer.getInteger("hdb.booking.hold", 120);
+
+    // An unknown mode falls back to none with a warning, a typo must not stop the app from starting
+    private static AtomicFileWriter.DurabilityMode durability(String value) {
+        try {
+            return AtomicFileWriter.DurabilityMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("⚠️ Unknown hdb.durability \"" + value + "\" (none | commit | batch), using none.");
+            return AtomicFileWriter.DurabilityMode.NONE;
+        }
+    }
+}
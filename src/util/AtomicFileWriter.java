@@ -0,0 +1,234 @@
+package src.util;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Crash-safe file rewrites: everything is written to "<file>.tmp", optionally forced to disk,
+ * and then atomically renamed over the original. A crash mid-write leaves the old file untouched.
+ *
+ * While a writer is open it holds the file's lock (see lockFor), so two rewrites of the same file never interleave.
+ *
+ * Usage:
+ *   try (AtomicFileWriter writer = new AtomicFileWriter(path)) {
+ *       writer.println(...);
+ *       writer.commit(); // Without commit() the temp file is thrown away on close
+ *   }
+ */
+public class AtomicFileWriter implements Closeable {
+    /*
+    Durability modes (-Dhdb.durability=none|commit|batch):
+    - NONE   : temp file + rename, but never fsync. A power cut can still lose the last few writes (not corrupt them)
+    - COMMIT : fsync on EVERY rewrite and EVERY journal append. Safest, slowest
+    - BATCH  : fsync only once per batch (a write-behind flush or a journal checkpoint), single writes are not forced
+
+    Every commit is counted and timed (see statsSummary) so the cost of each mode can be compared on the same workload.
+     */
+    public enum DurabilityMode {
+        NONE,
+        COMMIT,
+        BATCH
+    }
+
+    private static final AtomicLong commits = new AtomicLong();
+    private static final AtomicLong forces = new AtomicLong();
+    private static final AtomicLong writeNanos = new AtomicLong();
+    private static final AtomicLong forceNanos = new AtomicLong();
+
+    // One lock per file, held from opening a writer until commit()/close(), and around appends and in-place patches
+    private static final Map<String, ReentrantLock> fileLocks = new ConcurrentHashMap<>();
+
+    // Batch scope of the current thread (nesting depth + journal files appended to inside it)
+    private static final ThreadLocal<Integer> batchDepth = ThreadLocal.withInitial(() -> 0);
+    private static final ThreadLocal<Set<String>> batchAppends = ThreadLocal.withInitial(HashSet::new);
+
+    private final Path target;
+    private final ReentrantLock lock;
+    private final Path temp;
+    private final FileOutputStream out;
+    private final BufferedWriter writer;
+    private final long startNanos = System.nanoTime();
+    private final List<String> fixedWidthRows; // Rows held back until commit() knows the widest one (null = no padding)
+    private boolean headerWritten = false;
+    private boolean committed = false;
+
+    public AtomicFileWriter(String filePath) throws IOException {
+        this.target = Path.of(filePath);
+        this.temp = Path.of(filePath + ".tmp");
+        this.lock = lockFor(filePath);
+
+        lock.lock();
+        try {
+            this.out = new FileOutputStream(temp.toFile());
+        } catch (IOException e) {
+            lock.unlock();
+            throw e;
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        this.fixedWidthRows = RowOffsetIndex.usesFixedWidth(filePath) ? new ArrayList<>() : null;
+    }
+
+    /* Writes one line. In fixed-width mode the first line (header) is written as is and every row after it is padded */
+    public void println(String line) throws IOException {
+        if (fixedWidthRows != null && headerWritten) {
+            fixedWidthRows.add(line);
+            return;
+        }
+        writer.write(line);
+        writer.write(System.lineSeparator());
+        headerWritten = true;
+    }
+
+    /* Flushes, forces (depending on the durability mode) and renames the temp file over the target */
+    public void commit() throws IOException {
+        if (fixedWidthRows != null) writePaddedRows();
+        writer.flush();
+        if (shouldForce()) force(out.getChannel());
+        writer.close();
+
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+        RowOffsetIndex.invalidate(target.toString()); // Rows have moved, offsets must be rebuilt
+
+        if (shouldForce()) forceDirectory();
+
+        commits.incrementAndGet();
+        writeNanos.addAndGet(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!lock.isHeldByCurrentThread()) return; // Already closed
+
+        try {
+            if (!committed) {
+                // Never committed (an exception happened while writing), the original file is left as it was
+                writer.close();
+                Files.deleteIfExists(temp);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* The lock guarding every write to this file, also taken by readers that must not see a rewrite halfway */
+    public static ReentrantLock lockFor(String filePath) {
+        return fileLocks.computeIfAbsent(Path.of(filePath).normalize().toString(), path -> new ReentrantLock());
+    }
+
+    /* Appends text to the end of a file (journal records, new CSV rows), forced according to the durability mode */
+    public static void append(String filePath, String text) throws IOException {
+        long start = System.nanoTime();
+        ReentrantLock appendLock = lockFor(filePath);
+
+        appendLock.lock();
+        try (FileOutputStream appendOut = new FileOutputStream(filePath, true)) {
+            appendOut.write(text.getBytes(StandardCharsets.UTF_8));
+            RowOffsetIndex.invalidate(filePath); // New rows are not indexed yet
+
+            if (AppConfig.DURABILITY == DurabilityMode.COMMIT) {
+                force(appendOut.getChannel());
+            } else if (AppConfig.DURABILITY == DurabilityMode.BATCH && batchDepth.get() > 0) {
+                batchAppends.get().add(filePath); // Forced once when the batch ends
+            }
+        } finally {
+            appendLock.unlock();
+        }
+
+        commits.incrementAndGet();
+        writeNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    /*
+      Overwrites bytes of an existing file in place (RowOffsetIndex row patches), forced according to the durability mode.
+      The caller must hold lockFor(file) from looking up the offset until this returns.
+     */
+    public static void patch(FileChannel channel, long position, byte[] bytes) throws IOException {
+        long start = System.nanoTime();
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        if (shouldForce()) force(channel);
+
+        commits.incrementAndGet();
+        writeNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    /* Starts a batch on this thread: in BATCH mode every rewrite inside it is forced, appends are forced at endBatch() */
+    public static void beginBatch() {
+        batchDepth.set(batchDepth.get() + 1);
+    }
+
+    public static void endBatch() {
+        int depth = batchDepth.get() - 1;
+        batchDepth.set(depth);
+        if (depth > 0) return;
+
+        for (String filePath : batchAppends.get()) {
+            try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.WRITE)) {
+                force(channel);
+            } catch (IOException e) {
+                System.err.println("⚠️ Failed to force batch to disk: " + filePath);
+            }
+        }
+        batchAppends.get().clear();
+    }
+
+    /* One line summary of how many commits/fsyncs happened and how long they took */
+    public static String statsSummary() {
+        return String.format("Durability %s: %d commits (%.1f ms), %d fsyncs (%.1f ms)",
+                AppConfig.DURABILITY, commits.get(), writeNanos.get() / 1e6, forces.get(), forceNanos.get() / 1e6);
+    }
+
+    // Pads every held back row to the width of the widest one plus some slack, see RowOffsetIndex
+    private void writePaddedRows() throws IOException {
+        int width = 0;
+        for (String row : fixedWidthRows) {
+            width = Math.max(width, row.getBytes(StandardCharsets.UTF_8).length);
+        }
+        width += 1 + AppConfig.FIXED_WIDTH_SLACK;
+
+        for (String row : fixedWidthRows) {
+            writer.write(new String(RowOffsetIndex.padRow(row, width), StandardCharsets.UTF_8));
+            writer.write(System.lineSeparator());
+        }
+        fixedWidthRows.clear();
+    }
+
+    private static boolean shouldForce() {
+        return AppConfig.DURABILITY == DurabilityMode.COMMIT
+                || (AppConfig.DURABILITY == DurabilityMode.BATCH && batchDepth.get() > 0);
+    }
+
+    // The rename itself only survives a power cut once the directory entry is on disk too (not supported on Windows)
+    private void forceDirectory() {
+        Path directory = target.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            force(channel);
+        } catch (IOException ignored) {}
+    }
+
+    private static void force(FileChannel channel) throws IOException {
+        long start = System.nanoTime();
+        channel.force(true);
+        forces.incrementAndGet();
+        forceNanos.addAndGet(System.nanoTime() - start);
+    }
+}
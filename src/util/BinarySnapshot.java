@@ -0,0 +1,251 @@
+package src.util;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary snapshot of already-parsed data, so the next boot can skip CSV parsing entirely.
+ * A snapshot is only used while the CSVs it was built from are unchanged (same size, mtime and CRC32).
+ */
+public class BinarySnapshot {
+    /*
+    File layout (all numbers big-endian, strings are int length + UTF-8 bytes):
+        int     MAGIC
+        int     FORMAT_VERSION
+        int     schema version of the caller (bump it whenever the record layout changes)
+        int     number of source files
+                per source: string path, long size, long lastModified, long crc32
+        int     number of dictionary strings
+                per string: int length (-1 = null), bytes
+        ...     records: primitives written by the caller, every String is an int index into the dictionary
+
+    The dictionary stores each distinct string ONCE, so repeated values like "Single", "PENDING" or a project
+    name cost 4 bytes per record instead of a whole string.
+     */
+
+    private static final int MAGIC = 0x48444253; // "HDBS"
+    private static final int FORMAT_VERSION = 1;
+
+    // The snapshot is a cache of the CSVs, which are not the store in B-tree mode
+    public static boolean isEnabled() {
+        return AppConfig.SNAPSHOT_ENABLED && !AppConfig.STORE.equals("btree");
+    }
+
+    /* Collects records in memory, then writes header + dictionary + records in one go on commit() */
+    public static class Writer {
+        private final String snapshotPath;
+        private final int schemaVersion;
+        private final List<String> sourcePaths;
+        private final Map<String, Integer> dictionaryIndex = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        private final DataOutputStream records = new DataOutputStream(recordBytes);
+
+        public Writer(String snapshotPath, int schemaVersion, List<String> sourcePaths) {
+            this.snapshotPath = snapshotPath;
+            this.schemaVersion = schemaVersion;
+            this.sourcePaths = sourcePaths;
+        }
+
+        public void writeString(String value) throws IOException {
+            Integer index = dictionaryIndex.get(value);
+            if (index == null) {
+                index = dictionary.size();
+                dictionary.add(value);
+                dictionaryIndex.put(value, index);
+            }
+            records.writeInt(index);
+        }
+
+        public void writeStrings(List<String> values) throws IOException {
+            records.writeInt(values == null ? 0 : values.size());
+            if (values == null) return;
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+
+        public void writeInt(int value) throws IOException {
+            records.writeInt(value);
+        }
+
+        public void writeLong(long value) throws IOException {
+            records.writeLong(value);
+        }
+
+        public void writeDouble(double value) throws IOException {
+            records.writeDouble(value);
+        }
+
+        public void writeBoolean(boolean value) throws IOException {
+            records.writeBoolean(value);
+        }
+
+        /* Fingerprints the sources and writes the snapshot to a temp file which is then renamed over the old one */
+        public boolean commit() {
+            Path target = Path.of(snapshotPath);
+            Path temp = Path.of(snapshotPath + ".tmp");
+
+            try {
+                Files.createDirectories(target.toAbsolutePath().getParent());
+
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                    out.writeInt(schemaVersion);
+
+                    out.writeInt(sourcePaths.size());
+                    for (String source : sourcePaths) {
+                        writeRawString(out, source);
+                        out.writeLong(Files.size(Path.of(source)));
+                        out.writeLong(Files.getLastModifiedTime(Path.of(source)).toMillis());
+                        out.writeLong(checksum(source));
+                    }
+
+                    out.writeInt(dictionary.size());
+                    for (String value : dictionary) {
+                        writeRawString(out, value);
+                    }
+
+                    records.flush();
+                    recordBytes.writeTo(out);
+                }
+
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return true;
+            } catch (IOException e) {
+                System.err.println("⚠️ Failed to write snapshot: " + snapshotPath);
+                e.printStackTrace();
+                return false;
+            }
+        }
+
+        private static void writeRawString(DataOutputStream out, String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /* Reads back a snapshot written by Writer, the record read order must match the write order exactly */
+    public static class Reader {
+        private final ByteBuffer buffer;
+        private final String[] dictionary;
+
+        private Reader(ByteBuffer buffer, String[] dictionary) {
+            this.buffer = buffer;
+            this.dictionary = dictionary;
+        }
+
+        /*
+          Opens the snapshot if it exists, matches the schema version and ALL sources are unchanged.
+          Returns null otherwise, the caller should then fall back to parsing the CSVs.
+         */
+        public static Reader open(String snapshotPath, int schemaVersion, List<String> sourcePaths) {
+            Path path = Path.of(snapshotPath);
+            if (!Files.exists(path)) return null;
+
+            // Pending journal records would make the CSV fingerprint look unchanged while the data is not
+            for (String source : sourcePaths) {
+                CSVJournal.checkpoint(source);
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+                if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || buffer.getInt() != schemaVersion) {
+                    return null;
+                }
+
+                int sourceCount = buffer.getInt();
+                if (sourceCount != sourcePaths.size()) return null;
+
+                for (int i = 0; i < sourceCount; i++) {
+                    String source = readRawString(buffer);
+                    long size = buffer.getLong();
+                    long lastModified = buffer.getLong();
+                    long crc = buffer.getLong();
+
+                    if (!sourcePaths.get(i).equals(source)) return null;
+                    Path sourcePath = Path.of(source);
+                    if (!Files.exists(sourcePath)
+                            || Files.size(sourcePath) != size
+                            || Files.getLastModifiedTime(sourcePath).toMillis() != lastModified
+                            || checksum(source) != crc) {
+                        return null;
+                    }
+                }
+
+                String[] dictionary = new String[buffer.getInt()];
+                for (int i = 0; i < dictionary.length; i++) {
+                    dictionary[i] = readRawString(buffer);
+                }
+
+                return new Reader(buffer, dictionary);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("⚠️ Ignoring unreadable snapshot: " + snapshotPath);
+                return null;
+            }
+        }
+
+        public String readString() {
+            return dictionary[buffer.getInt()];
+        }
+
+        public List<String> readStrings() {
+            int count = buffer.getInt();
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        public int readInt() {
+            return buffer.getInt();
+        }
+
+        public long readLong() {
+            return buffer.getLong();
+        }
+
+        public double readDouble() {
+            return buffer.getDouble();
+        }
+
+        public boolean readBoolean() {
+            return buffer.get() != 0;
+        }
+
+        private static String readRawString(ByteBuffer buffer) {
+            int length = buffer.getInt();
+            if (length < 0) return null;
+
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /* CRC32 of the whole file, read through a memory mapping */
+    private static long checksum(String path) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += Integer.MAX_VALUE) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(Integer.MAX_VALUE, size - position)));
+            }
+        }
+        return crc.getValue();
+    }
+}
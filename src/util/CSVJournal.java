@@ -0,0 +1,148 @@
+package src.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Append-only write-ahead journal that sits in front of the CSV files.
+ * Instead of rewriting e.g. ApplicantList.csv for every single change, each change is appended as ONE short record
+ * to ApplicantList.csv.journal and the CSV itself is only regenerated during a checkpoint.
+ */
+public class CSVJournal {
+    /*
+    Record layout (1 line = 1 record, written as a normal CSV line so the same escaping rules apply):
+        KeyColumn,KeyValue,Column1,Value1,Column2,Value2,...
+    e.g.
+        NRIC,S1234567A,ApplicationStatus,PENDING
+
+    Records only ever contain absolute values, so replaying the same journal twice gives the same result.
+    That is what makes crash recovery simple: a half-finished checkpoint can just be replayed again.
+
+    Checkpoint steps:
+    1. Seal the active journal by renaming X.journal -> X.journal.ckpt (new appends start a fresh X.journal)
+    2. Fold all records in the sealed file into one update per key (last write wins per column)
+    3. Rewrite the CSV ONCE with those updates
+    4. Delete the sealed file
+     */
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String SEALED_SUFFIX = ".journal.ckpt";
+
+    // Number of records appended since the last checkpoint, per CSV file
+    private static final Map<String, Integer> pendingCounts = new HashMap<>();
+
+    // Changes appended since the last checkpoint, per CSV file and key (lets lazy readers see rows the CSV does not have yet)
+    private static final Map<String, Map<String, Map<String, String>>> pendingRows = new HashMap<>();
+
+    // CSV files currently being checkpointed, rewriting the CSV reads it through CSVReader which would otherwise re-enter
+    private static final Set<String> checkpointing = new HashSet<>();
+
+    public static boolean isEnabled() {
+        return AppConfig.JOURNAL_ENABLED;
+    }
+
+    /* Appends ONE change record for the row identified by keyColumn = key, checkpointing when the journal gets long */
+    public static synchronized boolean append(String filePath, String keyColumn, String key, Map<String, String> changes) {
+        List<String> cells = new ArrayList<>();
+        cells.add(keyColumn);
+        cells.add(key);
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            cells.add(change.getKey());
+            cells.add(change.getValue() == null ? "" : change.getValue());
+        }
+
+        try {
+            AtomicFileWriter.append(journalPath(filePath), CSVWriter.toCSVLine(cells) + System.lineSeparator());
+        } catch (IOException e) {
+            System.err.println("❌ Failed to append to journal: " + journalPath(filePath));
+            e.printStackTrace();
+            return false;
+        }
+
+        Map<String, String> pendingRow = pendingRows.computeIfAbsent(filePath, path -> new HashMap<>())
+                .computeIfAbsent(key, k -> new LinkedHashMap<>());
+        for (int i = 2; i + 1 < cells.size(); i += 2) {
+            pendingRow.put(cells.get(i), cells.get(i + 1));
+        }
+
+        int count = pendingCounts.merge(filePath, 1, Integer::sum);
+        if (count >= AppConfig.JOURNAL_CHECKPOINT_INTERVAL) {
+            checkpoint(filePath);
+        }
+        return true;
+    }
+
+    /* Regenerates the CSV from its journal (if there is one) so the CSV on disk is fully up to date again */
+    public static synchronized void checkpoint(String filePath) {
+        if (!checkpointing.add(filePath)) return;
+
+        AtomicFileWriter.beginBatch();
+        try {
+            File active = new File(journalPath(filePath));
+            File sealed = new File(filePath + SEALED_SUFFIX);
+
+            // A sealed file left behind means the previous checkpoint never finished, replay it first
+            if (sealed.exists() && !applySealed(filePath, sealed)) return;
+
+            if (!active.exists()) return;
+            if (!active.renameTo(sealed)) {
+                System.err.println("❌ Failed to seal journal for checkpoint: " + active.getPath());
+                return;
+            }
+
+            pendingCounts.remove(filePath);
+            if (applySealed(filePath, sealed)) pendingRows.remove(filePath);
+        } finally {
+            AtomicFileWriter.endBatch();
+            checkpointing.remove(filePath);
+        }
+    }
+
+    /* Journaled changes of ONE row that are not in the CSV yet (empty if there are none) */
+    public static synchronized Map<String, String> pendingChanges(String filePath, String key) {
+        Map<String, String> changes = pendingRows.getOrDefault(filePath, Map.of()).get(key);
+        return changes == null ? Map.of() : new HashMap<>(changes);
+    }
+
+    /* Checkpoints every CSV that was journaled during this run, called on shutdown */
+    public static synchronized void checkpointAll() {
+        for (String filePath : new ArrayList<>(pendingCounts.keySet())) {
+            checkpoint(filePath);
+        }
+    }
+
+    private static boolean applySealed(String filePath, File sealed) {
+        String[] keyColumn = {null}; // Same for every record of a file, captured from the tokenizer callback
+        Map<String, Map<String, String>> updates = new LinkedHashMap<>();
+
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(sealed), StandardCharsets.UTF_8))) {
+            CSVTokenizer.parse(reader, cells -> {
+                if (cells.length < 2) return; // Torn record from a crash mid-append, nothing usable in it
+
+                keyColumn[0] = cells[0];
+                Map<String, String> changes = updates.computeIfAbsent(cells[1], k -> new LinkedHashMap<>());
+                for (int i = 2; i + 1 < cells.length; i += 2) {
+                    changes.put(cells[i], cells[i + 1]);
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("❌ Failed to read journal: " + sealed.getPath());
+            e.printStackTrace();
+            return false;
+        }
+
+        if (!updates.isEmpty() && !CSVWriter.applyRowUpdates(filePath, keyColumn[0], updates)) {
+            return false; // Keep the sealed file around so nothing is lost, it is replayed on the next checkpoint
+        }
+
+        if (!sealed.delete()) {
+            System.err.println("⚠️ Failed to remove checkpointed journal: " + sealed.getPath());
+        }
+        return true;
+    }
+
+    private static String journalPath(String filePath) {
+        return filePath + JOURNAL_SUFFIX;
+    }
+}
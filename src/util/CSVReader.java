@@ -6,67 +6,72 @@ import java.io.IOException;
 import java.util.*;
 
 /**
- * Utility for reading CSV files into maps with header validation and indexing.
+ * Utility for reading CSV files into schema-bound tables (or streaming them) with header validation.
  */
 public class CSVReader {
 
-    /* Reads a CSV and returns a list of maps (1 map = 1 row) */
-    public static List<Map<String, String>> readCSV(String path, List<String> requiredHeaders) {
-        List<Map<String, String>> records = new ArrayList<>();
+    /* Handles ONE streamed row, columns maps each header name to its index in cells */
+    public interface RowHandler {
+        void handleRow(Map<String, Integer> columns, String[] cells);
+    }
+
+    /*
+      Reads a whole CSV into a CSVTable (schema + one String[] per row).
+      Columns in requiredHeaders that the file does not have yet are added to the table (filled with ""), so they are
+      written out with the caller's next rewrite. The file itself is migrated by SchemaMigrator, never by a read.
+     */
+    public static CSVTable readTable(String path, List<String> requiredHeaders) {
+        // Fold any journaled changes back into the CSV first so callers never see stale rows
+        CSVJournal.checkpoint(path);
 
         try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
             String headerLine = reader.readLine();
-            if (headerLine == null) return records;
-
-            String[] headers = headerLine.split(",");
-            List<String> existingHeaders = new ArrayList<>(Arrays.asList(headers));
+            if (headerLine == null) return new CSVTable(new CSVSchema(requiredHeaders));
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] values = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
+            CSVTable table = new CSVTable(new CSVSchema(Arrays.asList(headerLine.split(","))));
+            CSVTokenizer.parse(reader, table::add);
 
-                Map<String, String> row = new LinkedHashMap<>();
-                for (int i = 0; i < headers.length; i++) {
-                    row.put(headers[i], i < values.length ? values[i].replace("\"", "") : "");
-                }
-
-                records.add(row);
-            }
+            table.addColumns(requiredHeaders);
+            return table;
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to read CSV: " + path);
+            e.printStackTrace();
+            return new CSVTable(new CSVSchema(requiredHeaders));
+        }
+    }
 
-            // Check for missing columns and delegate update
-            boolean needsUpdate = false;
-            for (String required : requiredHeaders) {
-                if (!existingHeaders.contains(required)) {
-                    needsUpdate = true;
-                    break;
-                }
-            }
+    /*
+      Streams a CSV row by row straight from the tokenizer, WITHOUT building a map per row.
+      Use cell(columns, cells, "Header") inside the handler to read a value ("" for a column the file does not have yet).
+     */
+    public static void streamCSV(String path, RowHandler handler) {
+        CSVJournal.checkpoint(path);
 
-            if (needsUpdate) {
-                System.out.println("⚠️ Missing headers detected in: " + path + " — Updating...");
-                CSVWriter.addMissingColumns(path, requiredHeaders, existingHeaders, records);
-            }
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) return;
 
+            Map<String, Integer> columns = new CSVSchema(Arrays.asList(headerLine.split(","))).columns();
+            CSVTokenizer.parse(reader, cells -> handler.handleRow(columns, cells));
         } catch (IOException e) {
             System.err.println("⚠️ Failed to read CSV: " + path);
             e.printStackTrace();
         }
-
-        return records;
     }
 
-    /* Reads a CSV and returns a map where key = a specific column (In this case we used NRIC and Project Name) */
-    public static Map<String, Map<String, String>> readCSVByKey(String path, List<String> requiredHeaders, String keyColumn) {
-        List<Map<String, String>> rows = readCSV(path, requiredHeaders);
-        Map<String, Map<String, String>> indexedMap = new LinkedHashMap<>();
-
-        for (Map<String, String> row : rows) {
-            String key = row.getOrDefault(keyColumn, "").trim();
-            if (!key.isEmpty()) {
-                indexedMap.put(key, row);
-            }
+    /* Reads ONLY the header line, null if the file is missing or empty */
+    public static CSVSchema readSchema(String path) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String headerLine = reader.readLine();
+            return headerLine == null ? null : new CSVSchema(Arrays.asList(headerLine.split(",")));
+        } catch (IOException e) {
+            return null;
         }
+    }
 
-        return indexedMap;
+    /* Returns the value of a column in a streamed row, or "" if the column/cell does not exist */
+    public static String cell(Map<String, Integer> columns, String[] cells, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= cells.length ? "" : cells[index];
     }
 }
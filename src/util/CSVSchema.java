@@ -0,0 +1,74 @@
+package src.util;
+
+import java.util.*;
+
+/**
+ * The header of ONE CSV file: binds every column name to its index once, so rows can be plain String[]
+ * instead of a map per row that repeats every header name.
+ */
+public class CSVSchema {
+    private final List<String> headers;
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    public CSVSchema(List<String> headers) {
+        this.headers = List.copyOf(headers);
+        for (int i = 0; i < this.headers.size(); i++) {
+            columns.putIfAbsent(this.headers.get(i), i);
+        }
+    }
+
+    public List<String> headers() {
+        return headers;
+    }
+
+    public int size() {
+        return headers.size();
+    }
+
+    /* Index of a column, or -1 if the file does not have it */
+    public int column(String header) {
+        Integer index = columns.get(header);
+        return index == null ? -1 : index;
+    }
+
+    /* Column name -> index, e.g. for CSVReader.RowHandler */
+    public Map<String, Integer> columns() {
+        return Collections.unmodifiableMap(columns);
+    }
+
+    public boolean containsAll(Collection<String> required) {
+        return columns.keySet().containsAll(required);
+    }
+
+    /* Same schema with the given columns added at the end (if they are not there yet) */
+    public CSVSchema withColumns(Collection<String> required) {
+        List<String> updated = new ArrayList<>(headers);
+        for (String header : required) {
+            if (!columns.containsKey(header) && !updated.contains(header)) updated.add(header);
+        }
+        return updated.size() == headers.size() ? this : new CSVSchema(updated);
+    }
+
+    /* Value of a column in a row, or "" if the column/cell does not exist */
+    public String get(String[] row, String header) {
+        return get(row, column(header));
+    }
+
+    public String get(String[] row, int column) {
+        return column < 0 || column >= row.length || row[column] == null ? "" : row[column];
+    }
+
+    /*
+      Returns the cells as a row of exactly size() columns. Short rows are filled with "",
+      anything past the last header (e.g. the padding cell of a fixed-width row) is dropped.
+     */
+    public String[] conform(String[] cells) {
+        if (cells.length == headers.size()) return cells;
+
+        String[] row = Arrays.copyOf(cells, headers.size());
+        for (int i = cells.length; i < row.length; i++) {
+            row[i] = "";
+        }
+        return row;
+    }
+}
@@ -0,0 +1,78 @@
+package src.util;
+
+import java.util.*;
+
+/**
+ * A whole CSV file in memory: one CSVSchema + one String[] per row (every row has exactly schema().size() cells).
+ * Returned by CSVReader.readTable and written back by CSVWriter.writeTable.
+ */
+public class CSVTable {
+    private CSVSchema schema;
+    private final List<String[]> rows = new ArrayList<>();
+
+    public CSVTable(CSVSchema schema) {
+        this.schema = schema;
+    }
+
+    public CSVSchema schema() {
+        return schema;
+    }
+
+    public List<String[]> rows() {
+        return rows;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    public boolean isEmpty() {
+        return rows.isEmpty();
+    }
+
+    public void add(String[] cells) {
+        rows.add(schema.conform(cells));
+    }
+
+    public void remove(int row) {
+        rows.remove(row);
+    }
+
+    public String get(int row, String column) {
+        return schema.get(rows.get(row), column);
+    }
+
+    /* Sets one cell, adding the column to the schema first if the file does not have it yet */
+    public void set(int row, String column, String value) {
+        if (schema.column(column) < 0) addColumns(List.of(column));
+        rows.get(row)[schema.column(column)] = value == null ? "" : value;
+    }
+
+    /* Sets every column -> value of changes in one row */
+    public void update(int row, Map<String, String> changes) {
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            set(row, change.getKey(), change.getValue());
+        }
+    }
+
+    /* Index of the first row whose column equals value, or -1 */
+    public int indexOf(String column, String value) {
+        int index = schema.column(column);
+        if (index < 0) return -1;
+
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i)[index].equals(value)) return i;
+        }
+        return -1;
+    }
+
+    /* Adds missing columns at the end of the header, existing rows get "" for them. Returns true if anything was added */
+    public boolean addColumns(Collection<String> required) {
+        CSVSchema widened = schema.withColumns(required);
+        if (widened == schema) return false;
+
+        schema = widened;
+        rows.replaceAll(schema::conform);
+        return true;
+    }
+}
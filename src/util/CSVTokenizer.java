@@ -0,0 +1,102 @@
+package src.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass CSV tokenizer (RFC 4180).
+ * Walks the input ONCE character by character and hands every finished row to a RowVisitor,
+ * so no regex re-scanning of the line and no Map is built per row.
+ */
+public class CSVTokenizer {
+    /*
+    Handles:
+    - Quoted cells containing commas:          "Daniel,Emily"
+    - Escaped quotes inside quoted cells:      "He said ""hi"""  ->  He said "hi"
+    - Line breaks inside quoted cells (the row simply continues on the next line)
+    - \n, \r\n and \r line endings
+    Completely blank lines are skipped.
+     */
+
+    /* Receives each parsed row, cells are in file column order */
+    public interface RowVisitor {
+        void visitRow(String[] cells);
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Parser states
+    private static final int FIELD_START = 0;   // At the beginning of a cell
+    private static final int UNQUOTED = 1;      // Inside a plain cell
+    private static final int QUOTED = 2;        // Inside "...", commas and line breaks are part of the value
+    private static final int QUOTE_IN_QUOTED = 3; // Just saw a " inside a quoted cell, either an escape ("") or the closing quote
+
+    /* Tokenizes everything from the reader, calling the visitor once per row */
+    public static void parse(Reader reader, RowVisitor visitor) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        StringBuilder cell = new StringBuilder();
+        List<String> cells = new ArrayList<>();
+        int state = FIELD_START;
+        boolean skipLineFeed = false; // Set after \r so that a following \n does not end a second (empty) row
+
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char ch = buffer[i];
+
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (ch == '\n') continue;
+                }
+
+                switch (state) {
+                    case QUOTED -> {
+                        if (ch == '"') state = QUOTE_IN_QUOTED;
+                        else cell.append(ch);
+                    }
+                    case QUOTE_IN_QUOTED -> {
+                        if (ch == '"') {
+                            cell.append('"'); // "" is an escaped quote
+                            state = QUOTED;
+                        } else {
+                            // Closing quote, anything after it up to the next separator is kept as-is (lenient)
+                            state = UNQUOTED;
+                            i--; // Re-process this character as part of an unquoted cell
+                        }
+                    }
+                    default -> {
+                        if (ch == ',') {
+                            cells.add(cell.toString());
+                            cell.setLength(0);
+                            state = FIELD_START;
+                        } else if (ch == '\n' || ch == '\r') {
+                            endRow(cells, cell, state, visitor);
+                            state = FIELD_START;
+                            skipLineFeed = ch == '\r';
+                        } else if (ch == '"' && state == FIELD_START) {
+                            state = QUOTED;
+                        } else {
+                            cell.append(ch);
+                            state = UNQUOTED;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Last row may not end with a line break (an unterminated quote just ends at EOF)
+        endRow(cells, cell, state, visitor);
+    }
+
+    private static void endRow(List<String> cells, StringBuilder cell, int state, RowVisitor visitor) {
+        boolean blankLine = cells.isEmpty() && cell.length() == 0 && state == FIELD_START;
+        if (!blankLine) {
+            cells.add(cell.toString());
+            visitor.visitRow(cells.toArray(new String[0]));
+        }
+        cells.clear();
+        cell.setLength(0);
+    }
+}
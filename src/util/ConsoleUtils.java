@@ -1,7 +1,5 @@
 package src.util;
 
-import java.util.Scanner;
-
 /**
  * Utility class for CLI-related actions (clearing screen, pausing, etc)
  */
@@ -20,7 +18,7 @@ public class ConsoleUtils {
     /* Pauses the console until the user presses Enter */
     public static void pause() {
         System.out.println("\nPress Enter to continue...");
-        new Scanner(System.in).nextLine();
+        SessionConsole.readLine();
     }
 
     /* Prints a horizontal divider line */
@@ -5,4 +5,15 @@ public class FilePath {
     public static final String MANAGER_LIST_FILE = "data/ManagerList.csv";
     public static final String OFFICER_LIST_FILE = "data/OfficerList.csv";
     public static final String PROJECT_LIST_FILE = "data/ProjectList.csv";
+
+    public static final String USER_SNAPSHOT_FILE = "data/snapshot/users.bin";
+    public static final String PROJECT_SNAPSHOT_FILE = "data/snapshot/projects.bin";
+
+    public static final String APPLICANT_STORE_FILE = "data/store/applicants.btree";
+    public static final String OFFICER_STORE_FILE = "data/store/officers.btree";
+    public static final String MANAGER_STORE_FILE = "data/store/managers.btree";
+    public static final String PROJECT_STORE_FILE = "data/store/projects.btree";
+
+    public static final String PROJECT_MEMBERSHIP_DIR = "data/membership";
+    public static final String PROJECT_SCHEDULE_FILE = "data/schedule/day.txt";
 }
@@ -3,18 +3,23 @@ package src.util;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.Scanner;
 
+// Every line is read from the current session's console (System.in outside server mode), see SessionConsole
 public class InputValidator {
-    private static final Scanner sc = new Scanner(System.in);
     private static final DateTimeFormatter[] dateFormats = new DateTimeFormatter[]{
             DateTimeFormatter.ofPattern("dd-MM-yyyy")
     };
 
+    /* The line as typed, no validation */
+    public static String getLine(String prompt) {
+        System.out.print(prompt);
+        return SessionConsole.readLine();
+    }
+
     public static int getInt(String prompt) {
         while (true) {
             System.out.print(prompt);
-            String input = sc.nextLine();
+            String input = SessionConsole.readLine();
             try {
                 return Integer.parseInt(input.trim());
             } catch (NumberFormatException e) {
@@ -23,6 +28,20 @@ public class InputValidator {
         }
     }
 
+    /* A whole number (e.g. a ballot seed), or the fallback if the line is left blank */
+    public static long getLongOrDefault(String prompt, long fallback) {
+        while (true) {
+            System.out.print(prompt);
+            String input = SessionConsole.readLine().trim();
+            if (input.isEmpty()) return fallback;
+            try {
+                return Long.parseLong(input);
+            } catch (NumberFormatException e) {
+                System.out.println("❌ Please enter a whole number, or leave it blank.");
+            }
+        }
+    }
+
     public static int getIntInRange(String prompt, int min, int max) {
         while (true) {
             int value = getInt(prompt);
@@ -34,7 +53,7 @@ public class InputValidator {
     public static double getDouble(String prompt) {
         while (true) {
             System.out.print(prompt);
-            String input = sc.nextLine();
+            String input = SessionConsole.readLine();
             try {
                 return Double.parseDouble(input.trim());
             } catch (NumberFormatException e) {
@@ -54,7 +73,7 @@ public class InputValidator {
     public static String getNonEmptyString(String prompt) {
         while (true) {
             System.out.print(prompt);
-            String input = sc.nextLine().trim();
+            String input = SessionConsole.readLine().trim();
             if (!input.isEmpty()) return input;
             System.out.println("❌ Input cannot be empty.");
         }
@@ -63,7 +82,7 @@ public class InputValidator {
     public static boolean getYesNo(String prompt) {
         while (true) {
             System.out.print(prompt + " (Y/N): ");
-            String input = sc.nextLine().trim().toUpperCase();
+            String input = SessionConsole.readLine().trim().toUpperCase();
             if (input.equals("Y")) return true;
             if (input.equals("N")) return false;
             System.out.println("❌ Please enter Y or N.");
@@ -73,7 +92,7 @@ public class InputValidator {
     public static LocalDate getDate(String prompt) {
         while (true) {
             System.out.print(prompt);
-            String input = sc.nextLine().trim();
+            String input = SessionConsole.readLine().trim();
             for (DateTimeFormatter format : dateFormats) {
                 try {
                     return LocalDate.parse(input, format);
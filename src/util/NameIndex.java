@@ -0,0 +1,46 @@
+package src.util;
+
+import java.util.*;
+
+/**
+ * Case-insensitive name -> values index (e.g. officer name -> Officer) so lookups by name are one hash lookup
+ * instead of a scan with equalsIgnoreCase over every user.
+ * Names are not unique, so every name maps to ALL the values carrying it, in the order they were added.
+ */
+public class NameIndex<V> {
+    private final Map<String, List<V>> byName = new HashMap<>();
+
+    /* The key a name is stored under: trimmed and lower-cased, so "  Emily" and "EMILY" find the same users */
+    public static String fold(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public void add(String name, V value) {
+        byName.computeIfAbsent(fold(name), key -> new ArrayList<>(1)).add(value);
+    }
+
+    public void remove(String name, V value) {
+        String key = fold(name);
+        List<V> values = byName.get(key);
+        if (values == null) return;
+
+        values.remove(value);
+        if (values.isEmpty()) byName.remove(key);
+    }
+
+    /* Every value with this name (empty if there is none) */
+    public List<V> get(String name) {
+        List<V> values = byName.get(fold(name));
+        return values == null ? List.of() : Collections.unmodifiableList(values);
+    }
+
+    /* The first value added with this name, null if there is none */
+    public V first(String name) {
+        List<V> values = byName.get(fold(name));
+        return values == null ? null : values.get(0);
+    }
+
+    public void clear() {
+        byName.clear();
+    }
+}
@@ -0,0 +1,161 @@
+package src.util;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Loads big CSVs (e.g. a multi-million row ApplicantList.csv) using every core.
+ * The file is memory-mapped, split into newline-aligned chunks and each chunk is tokenized on the fork-join pool.
+ */
+public class ParallelCSVLoader {
+    /*
+    How it works:
+    1. Read the header line to build the column index (same as CSVReader.streamCSV)
+    2. Cut the rest of the file into ~CHUNK_SIZE byte ranges, moving every cut forward to just after the next '\n'
+       so no row is ever split between two chunks
+    3. Each chunk is mapped with FileChannel.map, decoded and tokenized by CSVTokenizer on its own fork-join task
+    4. Results are joined back IN FILE ORDER, so if an NRIC appears twice the last row still wins like before
+
+    Limitation: a chunk cut cannot tell whether a '\n' sits inside a quoted cell, so rows must not contain
+    line breaks inside quotes. That holds for the user lists (NRIC, name, age, statuses...).
+    Small files are not worth the thread hand-off and just go through CSVReader.streamCSV.
+     */
+
+    /* Turns ONE row into an object, return null to skip the row. Called from several threads at once! */
+    public interface RowMapper<T> {
+        T mapRow(Map<String, Integer> columns, String[] cells);
+    }
+
+    private static final long CHUNK_SIZE = 8L * 1024 * 1024;
+    private static final long PARALLEL_THRESHOLD = 2 * CHUNK_SIZE;
+
+    /* Reads every row of the CSV through the mapper, results are in file order */
+    public static <T> List<T> load(String path, RowMapper<T> mapper) {
+        CSVJournal.checkpoint(path);
+
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < PARALLEL_THRESHOLD) {
+                return loadSequential(path, mapper);
+            }
+
+            long headerEnd = nextLineStart(channel, 0);
+            Map<String, Integer> columns = new CSVSchema(Arrays.asList(readHeader(channel, headerEnd))).columns();
+
+            // Newline-aligned chunk boundaries
+            List<Long> bounds = new ArrayList<>();
+            bounds.add(headerEnd);
+            long cut = headerEnd;
+            while (cut < size) {
+                cut = nextLineStart(channel, Math.min(cut + CHUNK_SIZE, size));
+                bounds.add(cut);
+            }
+
+            return ForkJoinPool.commonPool().invoke(new ChunkTask<>(channel, bounds, 0, bounds.size() - 1, columns, mapper));
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("⚠️ Failed to read CSV: " + path);
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    private static <T> List<T> loadSequential(String path, RowMapper<T> mapper) {
+        List<T> results = new ArrayList<>();
+        CSVReader.streamCSV(path, (columns, cells) -> {
+            T mapped = mapper.mapRow(columns, cells);
+            if (mapped != null) results.add(mapped);
+        });
+        return results;
+    }
+
+    /* Splits the chunk range in half until ONE chunk is left, then parses it */
+    // ForkJoinTask is Serializable, a chunk task never is (it only lives for one load), hence the transient fields
+    private static class ChunkTask<T> extends RecursiveTask<List<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final transient List<Long> bounds;
+        private final int from; // Index into bounds (inclusive)
+        private final int to;   // Index into bounds (exclusive end chunk)
+        private final transient Map<String, Integer> columns;
+        private final transient RowMapper<T> mapper;
+
+        ChunkTask(FileChannel channel, List<Long> bounds, int from, int to, Map<String, Integer> columns, RowMapper<T> mapper) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.columns = columns;
+            this.mapper = mapper;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                ChunkTask<T> left = new ChunkTask<>(channel, bounds, from, mid, columns, mapper);
+                ChunkTask<T> right = new ChunkTask<>(channel, bounds, mid, to, columns, mapper);
+                left.fork();
+                List<T> rightRows = right.compute();
+                List<T> leftRows = left.join();
+                leftRows.addAll(rightRows);
+                return leftRows;
+            }
+
+            long start = bounds.get(from);
+            long end = bounds.get(to);
+            List<T> results = new ArrayList<>();
+            if (end <= start) return results;
+
+            try {
+                MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                CharBuffer chars = StandardCharsets.UTF_8.decode(bytes);
+                CSVTokenizer.parse(new CharArrayReader(chars.array(), chars.arrayOffset(), chars.limit()), cells -> {
+                    T mapped = mapper.mapRow(columns, cells);
+                    if (mapped != null) results.add(mapped);
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return results;
+        }
+    }
+
+    /* Returns the offset just after the first '\n' at or after position (or the file size if there is none) */
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) break;
+
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static String[] readHeader(FileChannel channel, long headerEnd) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) headerEnd);
+        channel.read(buffer, 0);
+        buffer.flip();
+
+        String headerLine = StandardCharsets.UTF_8.decode(buffer).toString().replaceAll("[\r\n]+$", "");
+        return headerLine.split(",");
+    }
+}
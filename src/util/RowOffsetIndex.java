@@ -0,0 +1,286 @@
+package src.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Byte-offset index of a CSV (key e.g. NRIC -> where its row starts and how many bytes the row may use),
+ * so one row can be rewritten IN PLACE with a single positioned write instead of rewriting the whole file.
+ */
+public class RowOffsetIndex {
+    /*
+    Fixed-width layout (-Dhdb.fixedwidth=true, user lists only):
+    Every row is padded to the same width W with an extra trailing cell of spaces, e.g.
+        NRIC,Password,Name,Age,Marital Status,FlatTypeApplied,AppliedProjectName,ApplicationStatus
+        S1234567A,test,John,35,Single,,,PENDING,<spaces up to W>
+        S3456789E,password,Rachel,25,Single,,,,<spaces up to W>
+    That extra cell has no header, so every reader simply ignores it. The spare room lets a row grow a little
+    (PENDING -> SUCCESSFUL -> BOOKED, a longer password) and still fit into its slot.
+
+    Patch rules:
+    - The new row must fit into the old slot, otherwise false is returned and the caller falls back to a full rewrite
+    - Any full rewrite of the file moves rows around, so AtomicFileWriter drops the index and it is rebuilt on next use
+    - Pending journal records are checkpointed first, otherwise they would overwrite the patched row later
+     */
+
+    // Not locked on purpose: invalidate() is called from inside journal checkpoints, which tryPatch() may itself wait on
+    private static final Map<String, RowOffsetIndex> indexes = new ConcurrentHashMap<>();
+
+    private final String filePath;
+    private final CSVSchema schema;
+    private final Map<String, Integer> rowByKey = new LinkedHashMap<>();
+    private long[] offsets = new long[1024];
+    private int[] slotLengths = new int[1024];
+    private int rowCount = 0;
+
+    private RowOffsetIndex(String filePath, CSVSchema schema) {
+        this.filePath = filePath;
+        this.schema = schema;
+    }
+
+    public static boolean isEnabled() {
+        return AppConfig.FIXED_WIDTH_ENABLED;
+    }
+
+    /* True if rewrites of this file should use the padded fixed-width layout */
+    public static boolean usesFixedWidth(String filePath) {
+        return isEnabled() && (filePath.equals(FilePath.APPLICANT_LIST_FILE)
+                || filePath.equals(FilePath.OFFICER_LIST_FILE)
+                || filePath.equals(FilePath.MANAGER_LIST_FILE));
+    }
+
+    /*
+      Builds the index for a user list at load time. A file that was written before fixed-width mode was
+      switched on is rewritten ONCE in the padded layout first.
+     */
+    public static synchronized void load(String filePath, String keyColumn) {
+        RowOffsetIndex index = forFile(filePath, keyColumn);
+        if (index != null && !index.isPadded()) {
+            CSVWriter.applyRowUpdates(filePath, keyColumn, Map.of()); // No changes, just rewrites every row padded
+            forFile(filePath, keyColumn);
+        }
+    }
+
+    /* Drops the index of a file whose rows may have moved (called after every full rewrite/append) */
+    public static void invalidate(String filePath) {
+        indexes.remove(filePath);
+    }
+
+    /*
+      Rewrites ONE row in place with the given column changes.
+      Returns false (nothing written) if the row is unknown, a column does not exist or the row no longer fits.
+     */
+    public static synchronized boolean tryPatch(String filePath, String keyColumn, String key, Map<String, String> changes) {
+        if (!usesFixedWidth(filePath)) return false;
+
+        CSVJournal.checkpoint(filePath);
+
+        // Held until the write is done, so no rewrite (checkpoint, migration...) can move the row in between
+        ReentrantLock fileLock = AtomicFileWriter.lockFor(filePath);
+        fileLock.lock();
+        try {
+            return patch(filePath, keyColumn, key, changes);
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    // Must be called while holding RowOffsetIndex and the file's lock
+    private static boolean patch(String filePath, String keyColumn, String key, Map<String, String> changes) {
+        RowOffsetIndex index = forFile(filePath, keyColumn);
+        if (index == null) return false;
+
+        Integer row = index.rowByKey.get(key);
+        if (row == null) return false;
+
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long offset = index.offsets[row];
+            int slot = index.slotLengths[row];
+
+            ByteBuffer current = ByteBuffer.allocate(slot);
+            channel.read(current, offset);
+            String[] cells = parseRow(new String(current.array(), StandardCharsets.UTF_8));
+
+            String[] values = index.schema.conform(cells).clone();
+            for (Map.Entry<String, String> change : changes.entrySet()) {
+                int column = index.schema.column(change.getKey());
+                if (column < 0) return false; // New column, needs a full rewrite
+                values[column] = change.getValue() == null ? "" : change.getValue();
+            }
+
+            byte[] updated = padRow(CSVWriter.toCSVLine(Arrays.asList(values)), slot);
+            if (updated == null) return false;
+
+            AtomicFileWriter.patch(channel, offset, updated);
+            return true;
+        } catch (IOException e) {
+            System.err.println("⚠️ In-place update failed, falling back to full rewrite: " + filePath);
+            return false;
+        }
+    }
+
+    /*
+      Reads ONE row straight from disk and maps it, with the overlay (changes not in the file yet) applied on top.
+      Returns null if the key is not in the file. Works for any CSV, padded or not.
+     */
+    public static synchronized <T> T readRow(String filePath, String keyColumn, String key, Map<String, String> overlay,
+                                             ParallelCSVLoader.RowMapper<T> mapper) {
+        RowOffsetIndex index = forFile(filePath, keyColumn);
+        if (index == null) return null;
+
+        Integer row = index.rowByKey.get(key);
+        if (row == null) return null;
+
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            ByteBuffer bytes = ByteBuffer.allocate(index.slotLengths[row]);
+            channel.read(bytes, index.offsets[row]);
+
+            String[] cells = index.schema.conform(parseRow(new String(bytes.array(), StandardCharsets.UTF_8))).clone();
+            for (Map.Entry<String, String> change : overlay.entrySet()) {
+                int column = index.schema.column(change.getKey());
+                if (column >= 0) cells[column] = change.getValue();
+            }
+            return mapper.mapRow(index.schema.columns(), cells);
+        } catch (IOException e) {
+            System.err.println("❌ Failed to read row " + key + " from: " + filePath);
+            return null;
+        }
+    }
+
+    /* True if the file has a row with this key */
+    public static synchronized boolean contains(String filePath, String keyColumn, String key) {
+        RowOffsetIndex index = forFile(filePath, keyColumn);
+        return index != null && index.rowByKey.containsKey(key);
+    }
+
+    /* Every key of the file, in file order */
+    public static synchronized List<String> keys(String filePath, String keyColumn) {
+        RowOffsetIndex index = forFile(filePath, keyColumn);
+        return index == null ? List.of() : new ArrayList<>(index.rowByKey.keySet());
+    }
+
+    /* Returns the row padded with a trailing ",   " cell to exactly width bytes, or null if it does not fit */
+    public static byte[] padRow(String row, int width) {
+        byte[] bytes = row.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == width) return bytes;
+        if (bytes.length + 1 > width) return null;
+
+        byte[] padded = new byte[width];
+        System.arraycopy(bytes, 0, padded, 0, bytes.length);
+        padded[bytes.length] = ',';
+        Arrays.fill(padded, bytes.length + 1, width, (byte) ' ');
+        return padded;
+    }
+
+    // Scans the whole file once and records where each row starts and how long it is
+    private static RowOffsetIndex forFile(String filePath, String keyColumn) {
+        RowOffsetIndex existing = indexes.get(filePath);
+        if (existing != null) return existing;
+
+        try (FileChannel channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            RowOffsetIndex index = null;
+            int keyIndex = -1;
+            long lineStart = 0;
+            long size = channel.size();
+
+            for (long position = 0; position <= size; position++) {
+                if (position < size && mapped.get((int) position) != '\n') continue;
+
+                long lineEnd = position;
+                if (lineEnd > lineStart && mapped.get((int) lineEnd - 1) == '\r') lineEnd--;
+
+                if (lineEnd > lineStart) {
+                    int length = (int) (lineEnd - lineStart);
+
+                    if (index == null) {
+                        byte[] bytes = new byte[length];
+                        mapped.get((int) lineStart, bytes);
+                        String[] cells = parseRow(new String(bytes, StandardCharsets.UTF_8));
+
+                        index = new RowOffsetIndex(filePath, new CSVSchema(Arrays.asList(cells)));
+                        keyIndex = index.schema.column(keyColumn);
+                        if (keyIndex < 0) return null;
+                    } else {
+                        String key = keyCell(mapped, (int) lineStart, length, keyIndex);
+                        if (key != null) index.add(key.trim(), lineStart, length);
+                    }
+                }
+                lineStart = position + 1;
+            }
+
+            if (index != null) indexes.put(filePath, index);
+            return index;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("⚠️ Failed to index CSV: " + filePath + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    /*
+      Cuts the key cell straight out of the mapped bytes without building the whole row.
+      Rows with quotes are rare (names with commas), those go through the full tokenizer instead.
+     */
+    private static String keyCell(ByteBuffer mapped, int start, int length, int keyIndex) {
+        int cellStart = start;
+        int column = 0;
+
+        for (int i = start; i <= start + length; i++) {
+            byte b = i < start + length ? mapped.get(i) : (byte) ',';
+            if (b == '"') {
+                byte[] bytes = new byte[length];
+                mapped.get(start, bytes);
+                String[] cells = parseRow(new String(bytes, StandardCharsets.UTF_8));
+                return keyIndex < cells.length ? cells[keyIndex] : null;
+            }
+            if (b != ',') continue;
+
+            if (column == keyIndex) {
+                byte[] bytes = new byte[i - cellStart];
+                mapped.get(cellStart, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            column++;
+            cellStart = i + 1;
+        }
+        return null;
+    }
+
+    private void add(String key, long offset, int slotLength) {
+        if (rowCount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, rowCount * 2);
+            slotLengths = Arrays.copyOf(slotLengths, rowCount * 2);
+        }
+        offsets[rowCount] = offset;
+        slotLengths[rowCount] = slotLength;
+        rowByKey.put(key, rowCount);
+        rowCount++;
+    }
+
+    // A padded file has every row in a slot of the same width
+    private boolean isPadded() {
+        for (int i = 1; i < rowCount; i++) {
+            if (slotLengths[i] != slotLengths[0]) return false;
+        }
+        return true;
+    }
+
+    private static String[] parseRow(String line) {
+        List<String[]> rows = new ArrayList<>(1);
+        try {
+            CSVTokenizer.parse(new StringReader(line), rows::add);
+        } catch (IOException ignored) {
+            // StringReader never throws
+        }
+        return rows.isEmpty() ? new String[0] : rows.get(0);
+    }
+}
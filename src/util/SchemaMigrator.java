@@ -0,0 +1,151 @@
+package src.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Brings the CSV files up to the current column layout (e.g. adds FlatTypeApplied/AppliedProjectName/ApplicationStatus
+ * to an original ApplicantList.csv), separately from reading them.
+ */
+public class SchemaMigrator {
+    /*
+    - Readers never migrate: a column the file does not have yet simply reads as "" (CSVSchema.get / CSVReader.cell),
+      and CSVReader.readTable adds the required columns in memory so the next full rewrite writes them out anyway
+    - migrate() streams the file row by row into "<file>.tmp" (AtomicFileWriter) and renames it over the original,
+      so memory stays bounded no matter how big the file is (except in fixed-width mode, where AtomicFileWriter
+      has to see every row to know the padded width)
+    - AtomicFileWriter holds the file's lock from opening the temp file until the rename, so no other writer can
+      commit in between and be overwritten by the migrated copy
+    - Once a file is on the current layout, "<file>.schema" records SCHEMA_VERSION and later boots skip it entirely
+
+    Bump SCHEMA_VERSION whenever a column is added to LAYOUTS below.
+     */
+    private static final int SCHEMA_VERSION = 1;
+    private static final String SIDECAR_SUFFIX = ".schema";
+
+    // Columns every file must have (in this order when they are added)
+    private static final Map<String, List<String>> LAYOUTS = new LinkedHashMap<>();
+    static {
+        LAYOUTS.put(FilePath.APPLICANT_LIST_FILE, List.of(
+                "NRIC", "Password", "Name", "Age", "Marital Status",
+                "FlatTypeApplied", "AppliedProjectName", "ApplicationStatus"));
+        LAYOUTS.put(FilePath.OFFICER_LIST_FILE, List.of(
+                "NRIC", "Password", "Name", "Age", "Marital Status",
+                "AssignedProject", "RegistrationStatus"));
+        LAYOUTS.put(FilePath.MANAGER_LIST_FILE, List.of(
+                "NRIC", "Password", "Name", "Age", "Marital Status"));
+        LAYOUTS.put(FilePath.PROJECT_LIST_FILE, List.of(
+                "Project Name", "Neighborhood",
+                "Type 1", "Number of units for Type 1", "Selling price for Type 1",
+                "Type 2", "Number of units for Type 2", "Selling price for Type 2",
+                "Application opening date", "Application closing date",
+                "Manager", "Officer Slot", "Officer",
+                "ManagerNRIC", "OfficerNRICs", "ApplicantNRICs", "Visibility"));
+    }
+
+    private static Thread background = null;
+
+    /* Migrates every known CSV that is not on the current layout yet, on this thread */
+    public static void migrateAll() {
+        for (Map.Entry<String, List<String>> layout : LAYOUTS.entrySet()) {
+            migrate(layout.getKey(), layout.getValue());
+        }
+    }
+
+    /* Same as migrateAll, but on a background thread while the app keeps reading the old layout */
+    public static synchronized void startBackground() {
+        if (background != null) return;
+
+        background = new Thread(SchemaMigrator::migrateAll, "csv-schema-migration");
+        background.setDaemon(true);
+        background.start();
+    }
+
+    /* Waits for a background migration to finish (called on shutdown) */
+    public static void awaitBackground() {
+        Thread thread;
+        synchronized (SchemaMigrator.class) {
+            thread = background;
+        }
+        if (thread == null) return;
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* Adds the missing required columns to ONE file by streaming it, returns false if the migration failed */
+    public static boolean migrate(String filePath, List<String> requiredHeaders) {
+        if (!new File(filePath).exists() || readSidecar(filePath) >= SCHEMA_VERSION) return true;
+
+        CSVJournal.checkpoint(filePath); // Journal records are replayed against the file, fold them in before it changes
+
+        List<String> existingHeaders = readHeader(filePath);
+        if (existingHeaders == null) return false;
+
+        if (!existingHeaders.containsAll(requiredHeaders)) {
+            System.out.println("⚠️ Missing headers detected in: " + filePath + " — Migrating...");
+
+            try (AtomicFileWriter writer = new AtomicFileWriter(filePath); // Takes the file's lock until commit/close
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8))) {
+                // Header read again under the lock, another writer may have added columns since the check above
+                String headerLine = reader.readLine();
+                CSVSchema schema = new CSVSchema(Arrays.asList(headerLine.split(","))).withColumns(requiredHeaders);
+                writer.println(String.join(",", schema.headers()));
+
+                IOException[] failure = {null};
+                CSVTokenizer.parse(reader, cells -> {
+                    if (failure[0] != null) return;
+                    try {
+                        writer.println(CSVWriter.toCSVLine(Arrays.asList(schema.conform(cells))));
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                });
+                if (failure[0] != null) throw failure[0];
+
+                writer.commit();
+            } catch (IOException e) {
+                System.err.println("❌ Failed to migrate CSV to the new columns: " + filePath);
+                e.printStackTrace();
+                return false;
+            }
+        }
+
+        writeSidecar(filePath);
+        return true;
+    }
+
+    private static List<String> readHeader(String filePath) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8))) {
+            String headerLine = reader.readLine();
+            return headerLine == null ? null : Arrays.asList(headerLine.split(","));
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to read CSV header: " + filePath);
+            return null;
+        }
+    }
+
+    // Schema version the file was last migrated to, 0 if it never was
+    private static int readSidecar(String filePath) {
+        try {
+            return Integer.parseInt(Files.readString(Path.of(filePath + SIDECAR_SUFFIX)).trim());
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void writeSidecar(String filePath) {
+        try (AtomicFileWriter writer = new AtomicFileWriter(filePath + SIDECAR_SUFFIX)) {
+            writer.println(String.valueOf(SCHEMA_VERSION));
+            writer.commit();
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to record schema version for: " + filePath); // Harmless, checked again next boot
+        }
+    }
+}
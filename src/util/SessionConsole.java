@@ -0,0 +1,118 @@
+package src.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Scanner;
+
+/**
+ * The console of the session running on the current thread: its input and its output.
+ * Without a session (the normal single-user app) that is System.in / System.out, in server mode every session thread
+ * attaches its own socket streams, so all the existing System.out.println / InputValidator calls just work per session.
+ */
+public class SessionConsole {
+    /*
+    - Input: InputValidator (and everything else that reads a line) goes through readLine(), which reads from the
+      current session's Scanner. Never create a Scanner on System.in, it would read another session's input
+    - Output: install() replaces System.out ONCE with a stream that forwards every call to the current session's
+      PrintStream (or the real System.out). It overrides every print method itself instead of funnelling bytes through
+      one shared PrintStream, so sessions never wait on each other's output lock or share an encoder
+    - Session output is buffered and flushed when the session reads its next line (prompts included) and on println
+     */
+    private static final PrintStream SYSTEM_OUT = System.out;
+
+    private static final class Console {
+        final Scanner in;
+        final PrintStream out;
+
+        Console(Scanner in, PrintStream out) {
+            this.in = in;
+            this.out = out;
+        }
+    }
+
+    private static final Console SYSTEM_CONSOLE = new Console(new Scanner(System.in), SYSTEM_OUT);
+    private static final ThreadLocal<Console> current = new ThreadLocal<>();
+
+    private static boolean installed = false;
+
+    /* Routes System.out through the current session from now on (idempotent) */
+    public static synchronized void install() {
+        if (installed) return;
+        System.setOut(new RoutingPrintStream());
+        installed = true;
+    }
+
+    /* Makes these streams the console of the current thread until detach() */
+    public static void attach(InputStream in, OutputStream out) {
+        current.set(new Console(
+                new Scanner(new InputStreamReader(in, StandardCharsets.UTF_8)),
+                new PrintStream(out, true, StandardCharsets.UTF_8)
+        ));
+    }
+
+    public static void detach() {
+        Console console = current.get();
+        current.remove();
+        if (console != null) console.out.flush();
+    }
+
+    /* One line of input, the pending output (e.g. the prompt) is flushed first. NoSuchElementException once the input ends */
+    public static String readLine() {
+        Console console = console();
+        console.out.flush();
+        return console.in.nextLine();
+    }
+
+    public static PrintStream out() {
+        return console().out;
+    }
+
+    private static Console console() {
+        Console console = current.get();
+        return console == null ? SYSTEM_CONSOLE : console;
+    }
+
+    // System.out in server mode: every call goes straight to the current session's stream
+    private static final class RoutingPrintStream extends PrintStream {
+        RoutingPrintStream() {
+            super(SYSTEM_OUT, true);
+        }
+
+        @Override public void write(int b) { out().write(b); }
+        @Override public void write(byte[] buf, int off, int len) { out().write(buf, off, len); }
+        @Override public void write(byte[] buf) throws IOException { out().write(buf); }
+        @Override public void flush() { out().flush(); }
+        @Override public boolean checkError() { return out().checkError(); }
+
+        @Override public void print(boolean b) { out().print(b); }
+        @Override public void print(char c) { out().print(c); }
+        @Override public void print(int i) { out().print(i); }
+        @Override public void print(long l) { out().print(l); }
+        @Override public void print(float f) { out().print(f); }
+        @Override public void print(double d) { out().print(d); }
+        @Override public void print(char[] s) { out().print(s); }
+        @Override public void print(String s) { out().print(s); }
+        @Override public void print(Object obj) { out().print(obj); }
+
+        @Override public void println() { out().println(); }
+        @Override public void println(boolean x) { out().println(x); }
+        @Override public void println(char x) { out().println(x); }
+        @Override public void println(int x) { out().println(x); }
+        @Override public void println(long x) { out().println(x); }
+        @Override public void println(float x) { out().println(x); }
+        @Override public void println(double x) { out().println(x); }
+        @Override public void println(char[] x) { out().println(x); }
+        @Override public void println(String x) { out().println(x); }
+        @Override public void println(Object x) { out().println(x); }
+
+        @Override public PrintStream printf(String format, Object... args) { out().printf(format, args); return this; }
+        @Override public PrintStream printf(Locale l, String format, Object... args) { out().printf(l, format, args); return this; }
+        @Override public PrintStream format(String format, Object... args) { out().format(format, args); return this; }
+        @Override public PrintStream format(Locale l, String format, Object... args) { out().format(l, format, args); return this; }
+
+        @Override public PrintStream append(CharSequence csq) { out().append(csq); return this; }
+        @Override public PrintStream append(CharSequence csq, int start, int end) { out().append(csq, start, end); return this; }
+        @Override public PrintStream append(char c) { out().append(c); return this; }
+    }
+}
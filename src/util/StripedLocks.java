@@ -0,0 +1,26 @@
+package src.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared out by key (key hash -> stripe), so every project / NRIC can be locked on its own
+ * without keeping one lock object per key around. Two keys on the same stripe just wait for each other.
+ */
+public class StripedLocks {
+    private final ReentrantLock[] stripes;
+
+    // Rounded up to a power of two, so the stripe is a mask of the hash
+    public StripedLocks(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock lockFor(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        hash ^= hash >>> 16; // Spread the high bits, like HashMap
+        return stripes[hash & (stripes.length - 1)];
+    }
+}
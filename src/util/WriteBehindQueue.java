@@ -0,0 +1,223 @@
+package src.util;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind layer for CSV row updates (group commit).
+ * CSVWriter hands its row updates here instead of touching the file, repeated updates to the same NRIC/project
+ * are merged, and a background thread writes everything out in ONE rewrite per file.
+ */
+public class WriteBehindQueue {
+    /*
+    When does a flush happen?
+    - Size trigger: as soon as WRITE_BEHIND_BATCH_SIZE different rows are dirty
+    - Time trigger: every WRITE_BEHIND_INTERVAL_MS, if anything is dirty
+    - flush(): explicit barrier, returns only once everything queued before the call is on disk
+      (used before CSVWriter operations that rewrite the file themselves, on shutdown and from a JVM shutdown hook)
+
+    The queue only ever holds COPIES of the row values (taken when the update is queued),
+    so the flusher thread never reads model objects that the menu thread is still changing.
+
+    A flush that fails puts the rows it could not write BACK into the queue (changes queued meanwhile win per column),
+    so they are retried on the next flush and reads keep seeing them. Until a file is written again, enqueue() and
+    flush() return false for it, so the callers can tell the user the change is not on disk.
+     */
+
+    /* Dirty rows of ONE CSV file, key value -> changed columns */
+    private static class PendingFile {
+        final String keyColumn;
+        final Map<String, Map<String, String>> rows = new LinkedHashMap<>();
+
+        PendingFile(String keyColumn) {
+            this.keyColumn = keyColumn;
+        }
+    }
+
+    private static final Object pendingLock = new Object();
+    private static final Object flushLock = new Object();
+
+    private static Map<String, PendingFile> pending = new LinkedHashMap<>();
+    private static int pendingRows = 0;
+    private static final Set<String> failingFiles = new HashSet<>(); // Last flush of these failed, rows are re-queued
+    private static ScheduledExecutorService flusher = null;
+    private static boolean exitHookInstalled = false;
+
+    public static boolean isEnabled() {
+        return AppConfig.WRITE_BEHIND_ENABLED;
+    }
+
+    /* Marks a row dirty, merging with any update already queued for the same key. False while flushes of the file fail */
+    public static boolean enqueue(String filePath, String keyColumn, String key, Map<String, String> changes) {
+        ScheduledExecutorService batchFlusher = null;
+        boolean healthy;
+
+        synchronized (pendingLock) {
+            startFlusher();
+
+            PendingFile file = pending.computeIfAbsent(filePath, path -> new PendingFile(keyColumn));
+            Map<String, String> row = file.rows.get(key);
+            if (row == null) {
+                row = new LinkedHashMap<>();
+                file.rows.put(key, row);
+                pendingRows++;
+            }
+            row.putAll(changes);
+
+            if (pendingRows >= AppConfig.WRITE_BEHIND_BATCH_SIZE) batchFlusher = flusher;
+            healthy = !failingFiles.contains(filePath);
+        }
+
+        if (batchFlusher != null) {
+            batchFlusher.execute(WriteBehindQueue::flush);
+        }
+        return healthy;
+    }
+
+    /* True if the row has queued changes that are not on disk yet */
+    public static boolean isPending(String filePath, String key) {
+        synchronized (pendingLock) {
+            PendingFile file = pending.get(filePath);
+            return file != null && file.rows.containsKey(key);
+        }
+    }
+
+    /* True while the last flush of this file failed (its rows are queued again) */
+    public static boolean isFailing(String filePath) {
+        synchronized (pendingLock) {
+            return failingFiles.contains(filePath);
+        }
+    }
+
+    /* Queued changes of ONE row (empty if there are none), waits for a flush in progress so nothing is in between */
+    public static Map<String, String> pendingChanges(String filePath, String key) {
+        synchronized (flushLock) {
+            synchronized (pendingLock) {
+                PendingFile file = pending.get(filePath);
+                Map<String, String> changes = file == null ? null : file.rows.get(key);
+                return changes == null ? Map.of() : new HashMap<>(changes);
+            }
+        }
+    }
+
+    /*
+      Barrier: writes out everything queued so far and waits for any flush already in progress.
+      False if anything could not be written, those rows stay queued for the next flush.
+     */
+    public static boolean flush() {
+        synchronized (flushLock) {
+            Map<String, PendingFile> batch;
+            synchronized (pendingLock) {
+                if (pending.isEmpty()) return failingFiles.isEmpty();
+                batch = pending;
+                pending = new LinkedHashMap<>();
+                pendingRows = 0;
+            }
+
+            boolean flushed = true;
+
+            AtomicFileWriter.beginBatch(); // One batch = one fsync per file in BATCH durability mode
+            try {
+                for (Map.Entry<String, PendingFile> entry : batch.entrySet()) {
+                    String filePath = entry.getKey();
+                    PendingFile file = entry.getValue();
+
+                    // Rows that still fit their padded slot are patched in place, only the rest need the journal / a rewrite
+                    if (RowOffsetIndex.usesFixedWidth(filePath)) {
+                        file.rows.entrySet().removeIf(row ->
+                                RowOffsetIndex.tryPatch(filePath, file.keyColumn, row.getKey(), row.getValue()));
+                    }
+
+                    if (file.rows.isEmpty()) {
+                        // Everything patched in place
+                    } else if (CSVJournal.isEnabled()) {
+                        file.rows.entrySet().removeIf(row ->
+                                CSVJournal.append(filePath, file.keyColumn, row.getKey(), row.getValue()));
+                    } else if (CSVWriter.applyRowUpdates(filePath, file.keyColumn, file.rows)) {
+                        file.rows.clear();
+                    }
+
+                    // What is left in file.rows was NOT written
+                    if (!requeue(filePath, file)) continue;
+                    System.err.println("❌ Write-behind flush failed for: " + filePath + " (" + file.rows.size() + " rows queued again)");
+                    flushed = false;
+                }
+            } finally {
+                AtomicFileWriter.endBatch();
+            }
+            return flushed;
+        }
+    }
+
+    // Puts unwritten rows back in front of whatever was queued since, returns true if there were any
+    private static boolean requeue(String filePath, PendingFile failed) {
+        synchronized (pendingLock) {
+            if (failed.rows.isEmpty()) {
+                failingFiles.remove(filePath);
+                return false;
+            }
+            failingFiles.add(filePath);
+
+            PendingFile newer = pending.remove(filePath);
+            PendingFile merged = new PendingFile(failed.keyColumn);
+            merged.rows.putAll(failed.rows);
+            pendingRows += failed.rows.size();
+
+            if (newer != null) {
+                for (Map.Entry<String, Map<String, String>> row : newer.rows.entrySet()) {
+                    Map<String, String> older = merged.rows.get(row.getKey());
+                    if (older == null) {
+                        merged.rows.put(row.getKey(), row.getValue());
+                    } else {
+                        older.putAll(row.getValue()); // The newer value of a column wins
+                        pendingRows--; // Counted in both
+                    }
+                }
+            }
+            pending.put(filePath, merged);
+            return true;
+        }
+    }
+
+    /* Flushes and stops the background thread, called once on shutdown */
+    public static void shutdown() {
+        ScheduledExecutorService executor;
+        synchronized (pendingLock) {
+            executor = flusher;
+            flusher = null;
+        }
+
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!flush()) {
+            System.err.println("❌ Some queued updates could not be written before shutting down.");
+        }
+    }
+
+    // Must be called while holding pendingLock
+    private static void startFlusher() {
+        if (flusher != null) return;
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "csv-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = AppConfig.WRITE_BEHIND_INTERVAL_MS;
+        flusher.scheduleWithFixedDelay(WriteBehindQueue::flush, interval, interval, TimeUnit.MILLISECONDS);
+
+        // Last line of defence if the JVM is stopped without going through shutdown() (e.g. Ctrl+C)
+        if (!exitHookInstalled) {
+            Runtime.getRuntime().addShutdownHook(new Thread(WriteBehindQueue::flush, "csv-write-behind-exit"));
+            exitHookInstalled = true;
+        }
+    }
+}